@@ -25,15 +25,23 @@ import org.wahlzeit.model.ModelConfig;
 import org.wahlzeit.model.UserSession;
 import org.wahlzeit.services.ConfigDir;
 import org.wahlzeit.services.Language;
+import org.wahlzeit.services.LogBuilder;
 import org.wahlzeit.services.SysConfig;
 import org.wahlzeit.utils.HtmlUtil;
+import org.wahlzeit.webparts.StreamingWebPart;
 import org.wahlzeit.webparts.WebPart;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+
 /**
  * A superclass for handling web pages.
  */
 public abstract class AbstractWebPageHandler extends AbstractWebPartHandler implements WebPageHandler {
 
+	private static final Logger log = Logger.getLogger(AbstractWebPageHandler.class.getName());
+
 	/**
 	 *
 	 */
@@ -47,17 +55,47 @@ public abstract class AbstractWebPageHandler extends AbstractWebPartHandler impl
 	public WebPart makeWebPage(UserSession us) {
 		WebPart result = createWebPart(us);
 
+		makeWebPageHead(us, result);
+		makeWebPageBody(us, result);
+
+		return result;
+	}
+
+	/**
+	 * Writes head and menu before the body is made, then lets the body write its parts as they are done
+	 */
+	public WebPart makeWebPart(UserSession us, OutputStream out) throws IOException {
+		StreamingWebPart result = new StreamingWebPart(getWebPartTemplate(us, tmplName), out);
+
+		makeWebPageHead(us, result);
+		result.writeThrough("menu");
+		makeWebPageBody(us, result);
+
+		return result;
+	}
+
+	/**
+	 *
+	 */
+	protected void makeWebPageHead(UserSession us, WebPart page) {
 		ConfigDir staticDir = SysConfig.getStaticDir();
 		String stylesheetUrl = HtmlUtil.asPath(staticDir.getRelativeConfigFileName("wahlzeit.css"));
-		result.addString("stylesheet", stylesheetUrl);
+		page.addString("stylesheet", stylesheetUrl);
 		String javascriptUrl = HtmlUtil.asPath(staticDir.getRelativeConfigFileName("wahlzeit.js"));
-		result.addString("javascript", javascriptUrl);
+		page.addString("javascript", javascriptUrl);
 
-		makeWebPageFrame(us, result);
-		makeWebPageMenu(us, result);
-		makeWebPageBody(us, result);
+		makeWebPageMetaData(us, page);
+		makeWebPageFrame(us, page);
+		makeWebPageMenu(us, page);
+	}
 
-		return result;
+	/**
+	 * @methodproperty hook
+	 *
+	 * Values for the meta tags of the head, which is written before the body is made
+	 */
+	protected void makeWebPageMetaData(UserSession us, WebPart page) {
+		// do nothing by default
 	}
 
 	/**
@@ -118,4 +156,22 @@ public abstract class AbstractWebPageHandler extends AbstractWebPartHandler impl
 		// do nothing by default
 	}
 
+	/**
+	 * @methodtype command
+	 *
+	 * Sends the page up to and including the given slot to the client, if the page is streamed.
+	 */
+	protected void writeWebPageThrough(WebPart page, String key) {
+		if (page instanceof StreamingWebPart) {
+			try {
+				((StreamingWebPart) page).writeThrough(key);
+			} catch (IOException e) {
+				// the rest of the page will fail the same way when the servlet writes it
+				log.warning(LogBuilder.createSystemMessage().
+						addParameter("slot", key).
+						addException("Problem when streaming web page", e).toString());
+			}
+		}
+	}
+
 }
@@ -24,8 +24,11 @@ import org.wahlzeit.model.AccessRights;
 import org.wahlzeit.model.Client;
 import org.wahlzeit.model.ModelConfig;
 import org.wahlzeit.model.Photo;
+import org.wahlzeit.model.PhotoDerivativeManager;
+import org.wahlzeit.model.PhotoId;
 import org.wahlzeit.model.PhotoManager;
 import org.wahlzeit.model.PhotoSize;
+import org.wahlzeit.model.PhotoSprite;
 import org.wahlzeit.model.User;
 import org.wahlzeit.model.UserSession;
 import org.wahlzeit.services.Language;
@@ -34,8 +37,10 @@ import org.wahlzeit.services.SysConfig;
 import org.wahlzeit.utils.HtmlUtil;
 import org.wahlzeit.utils.StringUtil;
 import org.wahlzeit.webparts.WebPart;
+import org.wahlzeit.webparts.WebPartCache;
 import org.wahlzeit.webparts.WebPartTemplate;
 import org.wahlzeit.webparts.WebPartTemplateService;
+import org.wahlzeit.webparts.Writable;
 
 import java.io.File;
 import java.util.Map;
@@ -75,9 +80,30 @@ public abstract class AbstractWebPartHandler implements WebPartHandler {
 	 * @methodtype factory
 	 */
 	protected final WebPart createWebPart(UserSession us, String name) {
+		return new WebPart(getWebPartTemplate(us, name));
+	}
+
+	/**
+	 * @methodtype factory
+	 *
+	 * Returns the part of the named template as is, for parts without values that are the same for all users.
+	 */
+	protected final Writable createCachedWebPart(UserSession us, String name) {
+		WebPartTemplate tmpl = getWebPartTemplate(us, name);
+		String key = WebPartCache.asKey(tmpl);
+		Writable result = WebPartCache.getInstance().getFragment(key, tmpl);
+		if (result == null) {
+			result = WebPartCache.getInstance().putFragment(key, new WebPart(tmpl));
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected final WebPartTemplate getWebPartTemplate(UserSession us, String name) {
 		WebPartTemplateService wpts = WebPartTemplateService.getInstance();
-		WebPartTemplate tmpl = wpts.getTemplate(us.getClient().getLanguageConfiguration().getLanguageCode(), name);
-		return new WebPart(tmpl);
+		return wpts.getTemplate(us.getClient().getLanguageConfiguration().getLanguageCode(), name);
 	}
 
 	/**
@@ -85,7 +111,13 @@ public abstract class AbstractWebPartHandler implements WebPartHandler {
 	 */
 	protected String getPhotoThumb(UserSession us, Photo photo) {
 		String result = null;
-		if (photo != null) {
+		PhotoSprite sprite = us.getPhotoSprite();
+		if (sprite != null && sprite.hasPhoto(photo)) {
+			String spriteLink = HtmlUtil.asPath(getPhotoSpriteAsRelativeResourcePathString(sprite));
+			PhotoId photoId = photo.getId();
+			result = HtmlUtil.asSpriteImg(spriteLink, sprite.getXOffset(photoId), sprite.getYOffset(photoId),
+					photo.getThumbWidth(), photo.getThumbHeight());
+		} else if (photo != null) {
 			String imageLink = getPhotoAsRelativeResourcePathString(photo, PhotoSize.THUMB);
 			result = HtmlUtil.asImg(HtmlUtil.asPath(imageLink), photo.getThumbWidth(), photo.getThumbHeight());
 		} else {
@@ -103,6 +135,36 @@ public abstract class AbstractWebPartHandler implements WebPartHandler {
 				"&size=" + String.valueOf(size.asInt());
 	}
 
+	/**
+	 * @methodtype conversion
+	 *
+	 * Returns a srcset with one derivative per allowed width up to the width of the largest rendition of the photo.
+	 */
+	protected String getPhotoSrcSetString(Photo photo) {
+		PhotoSize maxPhotoSize = photo.getMaxPhotoSize();
+		int maxWidth = maxPhotoSize.calcAdjustedWidth(photo.getWidth(), photo.getHeight());
+		String photoLink = HtmlUtil.asPath(getPhotoAsRelativeResourcePathString(photo, maxPhotoSize));
+
+		StringBuilder result = new StringBuilder();
+		for (int width : PhotoDerivativeManager.getWidthLadder()) {
+			if (width >= maxWidth) {
+				break;
+			}
+			String link = SysConfig.getPhotosDir().getRelativeDir() + "/?type=image&photoId=" + photo.getId().asString() +
+					"&width=" + width;
+			result.append(HtmlUtil.asPath(link)).append(" ").append(width).append("w, ");
+		}
+		result.append(photoLink).append(" ").append(maxWidth).append("w");
+		return result.toString();
+	}
+
+	/**
+	 *
+	 */
+	protected String getPhotoSpriteAsRelativeResourcePathString(PhotoSprite sprite) {
+		return SysConfig.getPhotosDir().getRelativeDir() + "/?type=sprite&photoIds=" + sprite.getKey();
+	}
+
 	/**
 	 *
 	 */
@@ -22,7 +22,6 @@ package org.wahlzeit.handlers;
 
 import org.wahlzeit.model.AccessRights;
 import org.wahlzeit.model.PhotoFilter;
-import org.wahlzeit.model.Tags;
 import org.wahlzeit.model.UserSession;
 import org.wahlzeit.services.LogBuilder;
 import org.wahlzeit.utils.StringUtil;
@@ -53,7 +52,7 @@ public class FilterPhotosFormHandler extends AbstractWebFormHandler {
 		PhotoFilter filter = us.getPhotoFilter();
 
 		part.maskAndAddString(PhotoFilter.USER_NAME, filter.getUserName());
-		part.maskAndAddString(PhotoFilter.TAGS, filter.getTags().asString());
+		part.maskAndAddString(PhotoFilter.TAGS, filter.getTagsCriterion());
 	}
 
 	/**
@@ -68,13 +67,13 @@ public class FilterPhotosFormHandler extends AbstractWebFormHandler {
 		}
 
 		String tags = us.getAsString(args, PhotoFilter.TAGS);
-		if (StringUtil.isLegalTagsString(tags)) {
-			filter.setTags(new Tags(tags));
+		if (StringUtil.isLegalTagsString(tags) && tags.length() <= PhotoFilter.MAX_TAGS_CRITERION_LENGTH) {
+			filter.setTagsCriterion(tags);
 		}
 
 		log.info(LogBuilder.createUserMessage().
 				addAction("Filter Photos").
-				addParameter("Tags", filter.getTags().asString()).toString());
+				addParameter("Tags", filter.getTagsCriterion()).toString());
 
 
 		return PartUtil.SHOW_PHOTO_PAGE_NAME;
@@ -23,7 +23,6 @@ package org.wahlzeit.handlers;
 import org.wahlzeit.model.AccessRights;
 import org.wahlzeit.model.ModelConfig;
 import org.wahlzeit.model.PhotoFilter;
-import org.wahlzeit.model.Tags;
 import org.wahlzeit.model.UserSession;
 import org.wahlzeit.utils.StringUtil;
 import org.wahlzeit.webparts.WebPart;
@@ -63,8 +62,8 @@ public class FilterPhotosPageHandler extends AbstractWebPageHandler {
 		}
 
 		String tags = us.getAsString(args, PhotoFilter.TAGS);
-		if (StringUtil.isLegalTagsString(tags)) {
-			filter.setTags(new Tags(tags));
+		if (StringUtil.isLegalTagsString(tags) && tags.length() <= PhotoFilter.MAX_TAGS_CRITERION_LENGTH) {
+			filter.setTagsCriterion(tags);
 		}
 
 		return PartUtil.SHOW_PHOTO_PAGE_NAME;
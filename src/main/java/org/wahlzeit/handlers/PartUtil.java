@@ -73,6 +73,10 @@ public interface PartUtil {
 	String FLAG_PHOTO_FORM_NAME = "flagPhotoForm";
 	String FLAG_PHOTO_FORM_FILE = "forms/FlagPhotoForm";
 
+	String SEARCH_PHOTOS_PAGE_NAME = "search";
+	String SEARCH_PHOTOS_FORM_NAME = "searchPhotosForm";
+	String SEARCH_PHOTOS_FORM_FILE = "forms/SearchPhotosForm";
+
 	String TELL_FRIEND_PAGE_NAME = "tell";
 	String TELL_FRIEND_FORM_NAME = "tellFriendForm";
 	String TELL_FRIEND_FORM_FILE = "forms/TellFriendForm";
@@ -83,6 +83,7 @@ public class PraisePhotoFormHandler extends AbstractWebFormHandler {
 				int value = Integer.parseInt(praise);
 				photo.addToPraise(value);
 				client.addPraisedPhotoId(photo.getId());
+				us.addPraisedPhoto(photo);
 				us.addProcessedPhoto(photo);
 				wasPraised = true;
 			}
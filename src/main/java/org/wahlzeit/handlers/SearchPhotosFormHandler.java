@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.handlers;
+
+import org.wahlzeit.model.AccessRights;
+import org.wahlzeit.model.ModelConfig;
+import org.wahlzeit.model.Photo;
+import org.wahlzeit.model.PhotoId;
+import org.wahlzeit.model.PhotoManager;
+import org.wahlzeit.model.UserSession;
+import org.wahlzeit.services.LogBuilder;
+import org.wahlzeit.utils.HtmlUtil;
+import org.wahlzeit.utils.StringUtil;
+import org.wahlzeit.webparts.WebPart;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A handler class for a specific web form.
+ */
+public class SearchPhotosFormHandler extends AbstractWebFormHandler {
+
+	private static final Logger log = Logger.getLogger(SearchPhotosFormHandler.class.getName());
+
+	/**
+	 *
+	 */
+	public static final String QUERY = "query";
+	public static final String RESULTS = "results";
+
+	/**
+	 * Maximum number of photos shown for a search
+	 */
+	public static final int MAX_NO_RESULTS = 24;
+
+	/**
+	 *
+	 */
+	public SearchPhotosFormHandler() {
+		initialize(PartUtil.SEARCH_PHOTOS_FORM_FILE, AccessRights.GUEST);
+	}
+
+	/**
+	 *
+	 */
+	protected void doMakeWebPart(UserSession us, WebPart part) {
+		Map args = us.getSavedArgs();
+		part.maskAndAddStringFromArgs(args, QUERY);
+
+		String query = us.getAsString(args, QUERY);
+		if (StringUtil.isNullOrEmptyString(query)) {
+			part.addString(RESULTS, "");
+			return;
+		}
+
+		PhotoManager photoManager = PhotoManager.getInstance();
+		List<PhotoId> ids = photoManager.getPhotoSearchIndex().search(query, MAX_NO_RESULTS);
+		StringBuilder results = new StringBuilder();
+		for (PhotoId id : ids) {
+			Photo photo = photoManager.getPhoto(id);
+			if (photo != null && photo.isVisible()) {
+				results.append(HtmlUtil.asHref(id.asString() + ".html", getPhotoThumb(us, photo))).append(" ");
+			}
+		}
+
+		if (results.length() == 0) {
+			ModelConfig config = us.getClient().getLanguageConfiguration();
+			results.append(config.getNoPhotosFound());
+		}
+
+		part.addString(RESULTS, results.toString());
+	}
+
+	/**
+	 *
+	 */
+	protected String doHandlePost(UserSession us, Map args) {
+		String query = us.getAndSaveAsString(args, QUERY);
+
+		log.info(LogBuilder.createUserMessage()
+				.addAction("Search Photos")
+				.addParameter("Query", query).toString());
+
+		return PartUtil.SEARCH_PHOTOS_PAGE_NAME;
+	}
+
+}
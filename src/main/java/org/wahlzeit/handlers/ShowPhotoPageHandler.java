@@ -28,9 +28,13 @@ import org.wahlzeit.model.PhotoId;
 import org.wahlzeit.model.PhotoManager;
 import org.wahlzeit.model.PhotoSize;
 import org.wahlzeit.model.Tags;
+import org.wahlzeit.model.User;
+import org.wahlzeit.model.UserManager;
 import org.wahlzeit.model.UserSession;
 import org.wahlzeit.utils.HtmlUtil;
 import org.wahlzeit.webparts.WebPart;
+import org.wahlzeit.webparts.WebPartCache;
+import org.wahlzeit.webparts.WebPartTemplate;
 import org.wahlzeit.webparts.Writable;
 import org.wahlzeit.webparts.WritableList;
 
@@ -69,7 +73,7 @@ public class ShowPhotoPageHandler extends AbstractWebPageHandler implements WebF
 
 		if (photo == null) {
 			PhotoFilter filter = us.getPhotoFilter();
-			photo = photoManager.getVisiblePhoto(filter);
+			photo = photoManager.getVisiblePhoto(filter, us.getPraisedPhotos());
 			if (photo != null) {
 				link = photo.getId().asString();
 			}
@@ -100,21 +104,31 @@ public class ShowPhotoPageHandler extends AbstractWebPageHandler implements WebF
 		Photo photo = PhotoManager.getInstance().getPhoto(photoId);
 
 		makeLeftSidebar(us, page);
+		writeWebPageThrough(page, "sidebar");
 
 		makePhoto(us, page);
+		writeWebPageThrough(page, Photo.IMAGE);
 
 		if (photo != null && photo.isVisible()) {
 			makePhotoCaption(us, page);
 			makeEngageGuest(us, page);
 
 			page.addString(Photo.ID, photoId.asString());
+		}
+
+		makeRightSidebar(us, page);
+	}
 
+	/**
+	 *
+	 */
+	protected void makeWebPageMetaData(UserSession us, WebPart page) {
+		Photo photo = PhotoManager.getInstance().getPhoto(us.getPhotoId());
+		if (photo != null && photo.isVisible()) {
 			Tags tags = photo.getTags();
 			page.addString(Photo.DESCRIPTION, getPhotoSummary(us, photo));
 			page.addString(Photo.KEYWORDS, tags.asString(false, ','));
 		}
-
-		makeRightSidebar(us, page);
 	}
 
 	/**
@@ -128,14 +142,14 @@ public class ShowPhotoPageHandler extends AbstractWebPageHandler implements WebF
 		if (lastPraisedPhoto != null) {
 			parts.append(makePriorPhotoInfo(us, lastPraisedPhoto));
 		} else {
-			parts.append(createWebPart(us, PartUtil.BLURP_INFO_FILE));
+			parts.append(createCachedWebPart(us, PartUtil.BLURP_INFO_FILE));
 		}
 
 		WebFormHandler handler = getFormHandler(PartUtil.FILTER_PHOTOS_FORM_NAME);
 		Writable filterPhotos = handler.makeWebPart(us);
 		parts.append(filterPhotos);
 
-		parts.append(createWebPart(us, PartUtil.LINKS_INFO_FILE));
+		parts.append(createCachedWebPart(us, PartUtil.LINKS_INFO_FILE));
 
 		page.addWritable("sidebar", parts);
 	}
@@ -167,7 +181,10 @@ public class ShowPhotoPageHandler extends AbstractWebPageHandler implements WebF
 		PhotoSize maxPhotoSize = photo.getMaxPhotoSize();
 		PhotoSize photoSize = (maxPhotoSize.isSmaller(pagePhotoSize)) ? maxPhotoSize : pagePhotoSize;
 		String imageLink = getPhotoAsRelativeResourcePathString(photo, photoSize);
-		page.addString(Photo.IMAGE, HtmlUtil.asImg(HtmlUtil.asPath(imageLink)));
+		int mainWidth = pagePhotoSize.getMaxPhotoWidth();
+		int photoWidth = photoSize.calcAdjustedWidth(photo.getWidth(), photo.getHeight());
+		String sizes = "(max-width: " + mainWidth + "px) 100vw, " + photoWidth + "px";
+		page.addString(Photo.IMAGE, HtmlUtil.asImg(HtmlUtil.asPath(imageLink), getPhotoSrcSetString(photo), sizes));
 	}
 
 	/**
@@ -177,8 +194,16 @@ public class ShowPhotoPageHandler extends AbstractWebPageHandler implements WebF
 		PhotoId photoId = us.getPhotoId();
 		Photo photo = PhotoManager.getInstance().getPhoto(photoId);
 
-		WebPart caption = createWebPart(us, PartUtil.CAPTION_INFO_FILE);
-		caption.addString(Photo.CAPTION, getPhotoCaption(us, photo));
+		// the caption only shows the owner's name
+		WebPartTemplate tmpl = getWebPartTemplate(us, PartUtil.CAPTION_INFO_FILE);
+		User owner = UserManager.getInstance().getUserById(photo.getOwnerId());
+		String key = WebPartCache.asKey(tmpl, photo, owner);
+		Writable caption = WebPartCache.getInstance().getFragment(key, tmpl);
+		if (caption == null) {
+			WebPart part = new WebPart(tmpl);
+			part.addString(Photo.CAPTION, getPhotoCaption(us, photo));
+			caption = WebPartCache.getInstance().putFragment(key, part);
+		}
 		page.addWritable(Photo.CAPTION, caption);
 	}
 
@@ -215,12 +240,18 @@ public class ShowPhotoPageHandler extends AbstractWebPageHandler implements WebF
 	/**
 	 *
 	 */
-	protected WebPart makePriorPhotoInfo(UserSession us, Photo lastPraisedPhoto) {
-		WebPart result = createWebPart(us, PartUtil.PHOTO_INFO_FILE);
-
-		result.addString(Photo.PRAISE, lastPraisedPhoto.getPraiseAsString(us.getClient().getLanguageConfiguration()));
-		result.addString(Photo.THUMB, getPhotoThumb(us, lastPraisedPhoto));
-		result.addString(Photo.CAPTION, getPhotoCaption(us, lastPraisedPhoto));
+	protected Writable makePriorPhotoInfo(UserSession us, Photo lastPraisedPhoto) {
+		WebPartTemplate tmpl = getWebPartTemplate(us, PartUtil.PHOTO_INFO_FILE);
+		User owner = UserManager.getInstance().getUserById(lastPraisedPhoto.getOwnerId());
+		String key = WebPartCache.asKey(tmpl, lastPraisedPhoto, owner);
+		Writable result = WebPartCache.getInstance().getFragment(key, tmpl);
+		if (result == null) {
+			WebPart part = new WebPart(tmpl);
+			part.addString(Photo.PRAISE, lastPraisedPhoto.getPraiseAsString(us.getClient().getLanguageConfiguration()));
+			part.addString(Photo.THUMB, getPhotoThumb(us, lastPraisedPhoto));
+			part.addString(Photo.CAPTION, getPhotoCaption(us, lastPraisedPhoto));
+			result = WebPartCache.getInstance().putFragment(key, part);
+		}
 
 		return result;
 	}
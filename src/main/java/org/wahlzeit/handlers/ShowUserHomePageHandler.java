@@ -23,6 +23,7 @@ package org.wahlzeit.handlers;
 import org.wahlzeit.model.AccessRights;
 import org.wahlzeit.model.Photo;
 import org.wahlzeit.model.PhotoManager;
+import org.wahlzeit.model.PhotoSprite;
 import org.wahlzeit.model.User;
 import org.wahlzeit.model.UserSession;
 import org.wahlzeit.utils.HtmlUtil;
@@ -30,6 +31,9 @@ import org.wahlzeit.webparts.WebPart;
 import org.wahlzeit.webparts.Writable;
 import org.wahlzeit.webparts.WritableList;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A handler class for a specific web page.
  */
@@ -46,28 +50,41 @@ public class ShowUserHomePageHandler extends AbstractWebPageHandler {
 	 *
 	 */
 	protected void makeWebPageBody(UserSession us, WebPart page) {
-		Writable part = makeUserProfileForm(us);
-		page.addWritable("profile", part);
-
 		User user = (User) us.getClient();
-		Photo[] photos = user.getPhotos();
-		boolean wasEmpty = true;
-		if (photos.length != 0) {
-			WritableList list = new WritableList();
-			for (Photo photo : photos) {
-				// load it from the PhotoManager to make sure the same copy is used
-				photo = PhotoManager.getInstance().getPhotoFromId(photo.getId());
-				if (photo != null && !photo.getStatus().isDeleted()) {
+		List<Photo> photos = new ArrayList<Photo>();
+		for (Photo photo : user.getPhotos()) {
+			// load it from the PhotoManager to make sure the same copy is used
+			photo = PhotoManager.getInstance().getPhotoFromId(photo.getId());
+			if (photo != null && !photo.getStatus().isDeleted()) {
+				photos.add(photo);
+			}
+		}
+
+		// all thumbnails of the page are served as one sprite image
+		List<Photo> thumbs = new ArrayList<Photo>(photos.size() + 1);
+		thumbs.add(user.getUserPhoto());
+		thumbs.addAll(photos);
+		PhotoSprite sprite = PhotoSprite.getFromPhotos(thumbs);
+		if (sprite.isWorthwhile()) {
+			us.setPhotoSprite(sprite);
+		}
+
+		try {
+			Writable part = makeUserProfileForm(us);
+			page.addWritable("profile", part);
+
+			if (!photos.isEmpty()) {
+				WritableList list = new WritableList();
+				for (Photo photo : photos) {
 					part = makeUserPhotoForm(us, photo);
 					list.append(part);
-					wasEmpty = false;
 				}
+				page.addWritable("photos", list);
+			} else {
+				page.addString("photos", HtmlUtil.asP(us.getClient().getLanguageConfiguration().getNoPhotoUploaded()));
 			}
-			page.addWritable("photos", list);
-		}
-
-		if (wasEmpty) {
-			page.addString("photos", HtmlUtil.asP(us.getClient().getLanguageConfiguration().getNoPhotoUploaded()));
+		} finally {
+			us.setPhotoSprite(null);
 		}
 	}
 
@@ -23,6 +23,9 @@ package org.wahlzeit.handlers;
 import org.wahlzeit.model.UserSession;
 import org.wahlzeit.webparts.WebPart;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 
 /**
  * The general interface for web pages.
@@ -34,5 +37,10 @@ public interface WebPageHandler extends WebPartHandler {
 	 */
 	WebPart makeWebPart(UserSession us);
 
+	/**
+	 * Makes the web page while writing its finished parts to out; the returned part still needs to be written on out
+	 */
+	WebPart makeWebPart(UserSession us, OutputStream out) throws IOException;
+
 
 }
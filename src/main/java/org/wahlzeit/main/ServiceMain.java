@@ -20,6 +20,7 @@
 
 package org.wahlzeit.main;
 
+import com.google.appengine.api.utils.SystemProperty;
 import com.googlecode.objectify.ObjectifyService;
 import com.googlecode.objectify.VoidWork;
 import org.wahlzeit.handlers.*;
@@ -34,6 +35,7 @@ import org.wahlzeit.services.SysConfig;
 import org.wahlzeit.webparts.WebPartTemplateService;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.logging.Logger;
 
@@ -118,9 +120,22 @@ public class ServiceMain extends ModelMain {
 	/**
 	 *
 	 */
-	public void configureWebPartTemplateService() {
+	public void configureWebPartTemplateService() throws IOException {
 		ConfigDir templatesDir = SysConfig.getTemplatesDir();
-		WebPartTemplateService.getInstance().setTemplatesDir(templatesDir);
+		WebPartTemplateService templateService = WebPartTemplateService.getInstance();
+		templateService.setTemplatesDir(templatesDir);
+		templateService.loadAllTemplates();
+
+		if (isInDevelopment()) {
+			templateService.startWatchingTemplates();
+		}
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean isInDevelopment() {
+		return !isInProduction() || SystemProperty.environment.value() == SystemProperty.Environment.Value.Development;
 	}
 
 	/**
@@ -161,6 +176,9 @@ public class ServiceMain extends ModelMain {
 		// Flag, Send, Tell, and Options pages
 		temp = manager.addWebPartHandler(PartUtil.FLAG_PHOTO_FORM_NAME, new FlagPhotoFormHandler());
 		manager.addWebPartHandler(PartUtil.FLAG_PHOTO_PAGE_NAME, new ShowPartPageHandler(AccessRights.GUEST, temp));
+
+		temp = manager.addWebPartHandler(PartUtil.SEARCH_PHOTOS_FORM_NAME, new SearchPhotosFormHandler());
+		manager.addWebPartHandler(PartUtil.SEARCH_PHOTOS_PAGE_NAME, new ShowPartPageHandler(AccessRights.GUEST, temp));
 		temp = manager.addWebPartHandler(PartUtil.SEND_EMAIL_FORM_NAME, new SendEmailFormHandler());
 		manager.addWebPartHandler(PartUtil.SEND_EMAIL_PAGE_NAME, new ShowPartPageHandler(AccessRights.GUEST, temp));
 		temp = manager.addWebPartHandler(PartUtil.TELL_FRIEND_FORM_NAME, new TellFriendFormHandler());
@@ -245,6 +263,7 @@ public class ServiceMain extends ModelMain {
 	public void shutDown() throws Exception {
 		//AgentManager am = AgentManager.getInstance();
 		//am.stopAllThreads();
+		WebPartTemplateService.getInstance().stopWatchingTemplates();
 
 		super.shutDown();
 	}
@@ -9,11 +9,18 @@
  */
 package org.wahlzeit.model;
 
+import java.io.Serializable;
+
 /**
  * Represents an abstract coordinate which provides some forwarding default
  * implementations.
  */
-public abstract class AbstractCoordinate implements Coordinate {
+public abstract class AbstractCoordinate implements Coordinate, Serializable {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
 
 	/* (non-Javadoc)
 	 * @see org.wahlzeit.model.Coordinate#asCartesianCoordinate()
@@ -19,6 +19,11 @@ package org.wahlzeit.model;
  */
 public class CartesianCoordinate extends AbstractCoordinate {
 
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
+
 	/*
 	 * 
 	 */
@@ -25,11 +25,14 @@ import com.googlecode.objectify.annotation.Entity;
 import com.googlecode.objectify.annotation.Id;
 import com.googlecode.objectify.annotation.Ignore;
 import com.googlecode.objectify.annotation.Parent;
+import org.wahlzeit.services.DataObject;
 import org.wahlzeit.services.EmailAddress;
 import org.wahlzeit.services.Language;
 import org.wahlzeit.services.ObjectManager;
 import org.wahlzeit.services.Persistent;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -66,6 +69,9 @@ public abstract class Client implements Serializable, Persistent {
 	@Ignore
 	protected int writeCount = 0;
 
+	@Ignore
+	protected long version = DataObject.nextVersion();
+
 	private String httpSessionId;
 
 	protected Language language = Language.ENGLISH;
@@ -186,6 +192,15 @@ public abstract class Client implements Serializable, Persistent {
 		return emailAddress;
 	}
 
+	/**
+	 * @methodtype boolean-query
+	 *
+	 * Ephemeral clients live in memory only and are never written to the datastore.
+	 */
+	public boolean isEphemeral() {
+		return false;
+	}
+
 	/**
 	 *
 	 */
@@ -198,6 +213,7 @@ public abstract class Client implements Serializable, Persistent {
 	 */
 	public void incWriteCount() {
 		writeCount++;
+		version = DataObject.nextVersion();
 	}
 
 	/**
@@ -207,6 +223,21 @@ public abstract class Client implements Serializable, Persistent {
 		writeCount = 0;
 	}
 
+	/**
+	 *
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Field initializers do not run on deserialization, so a restored object needs a fresh version
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		version = DataObject.nextVersion();
+	}
+
 	/**
 	 *
 	 */
@@ -2,6 +2,7 @@ package org.wahlzeit.model;
 
 import org.wahlzeit.services.LogBuilder;
 import org.wahlzeit.services.ObjectManager;
+import org.wahlzeit.services.Persistent;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -132,6 +133,17 @@ public abstract class ClientManager extends ObjectManager {
 	}
 
 
+	/**
+	 * Ephemeral clients are skipped, so creating and saving guests never touches the datastore.
+	 */
+	@Override
+	protected void writeObject(Persistent object) {
+		if (!(object instanceof Client) || !((Client) object).isEphemeral()) {
+			super.writeObject(object);
+		}
+	}
+
+
 	// has client method -----------------------------------------------------------------------------------------------
 
 	/**
@@ -225,7 +237,10 @@ public abstract class ClientManager extends ObjectManager {
 	 */
 	protected void doDeleteClient(Client client) {
 		idClientMap.remove(client.getId());
-		deleteObject(client);
+		listOfUsedNicknames.remove(client.getNickName());
+		if (!client.isEphemeral()) {
+			deleteObject(client);
+		}
 	}
 
 	/**
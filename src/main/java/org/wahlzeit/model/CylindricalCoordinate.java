@@ -26,6 +26,12 @@ package org.wahlzeit.model;
  * z means the signed distance form the XY-plane in positive Z-direction.
  */
 public class CylindricalCoordinate extends AbstractCoordinate {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * The radius of the cylinder of this point. 
 	 */
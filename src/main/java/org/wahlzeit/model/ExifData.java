@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+/**
+ * The ExifData of a photo holds the metadata found in the Exif segment of an uploaded JPEG file.
+ * Values that were not present in the file keep their defaults.
+ */
+public class ExifData {
+
+	/**
+	 * Orientation value for "top-left", i.e. the image needs no rotation
+	 */
+	public static final int DEFAULT_ORIENTATION = 1;
+
+	/**
+	 *
+	 */
+	protected Location location = null;
+	protected long captureTime = 0;
+	protected int orientation = DEFAULT_ORIENTATION;
+
+	/**
+	 *
+	 */
+	public ExifData() {
+		// do nothing
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean hasLocation() {
+		return location != null;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public Location getLocation() {
+		return location;
+	}
+
+	/**
+	 * @methodtype set
+	 */
+	public void setLocation(Location newLocation) {
+		location = newLocation;
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean hasCaptureTime() {
+		return captureTime != 0;
+	}
+
+	/**
+	 * Capture time in milliseconds since the epoch; Exif stores local time without zone, so it is read as UTC.
+	 *
+	 * @methodtype get
+	 */
+	public long getCaptureTime() {
+		return captureTime;
+	}
+
+	/**
+	 * @methodtype set
+	 */
+	public void setCaptureTime(long newCaptureTime) {
+		captureTime = newCaptureTime;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int getOrientation() {
+		return orientation;
+	}
+
+	/**
+	 * @methodtype set
+	 */
+	public void setOrientation(int newOrientation) {
+		orientation = newOrientation;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void applyTo(Photo photo) {
+		if (hasLocation()) {
+			photo.setLocation(location);
+		}
+		if (hasCaptureTime()) {
+			photo.setCaptureTime(captureTime);
+		}
+		photo.setOrientation(orientation);
+	}
+
+}
@@ -0,0 +1,454 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An ExifReader extracts location, capture time and orientation from a JPEG stream.
+ * It walks the JPEG marker segments up to the start of the compressed image data and only buffers the APP1 (Exif)
+ * segment; all other segments are skipped and no pixel data is ever decoded.
+ */
+public class ExifReader {
+
+	/**
+	 * JPEG markers
+	 */
+	protected static final int MARKER_PREFIX = 0xFF;
+	protected static final int MARKER_SOI = 0xD8;
+	protected static final int MARKER_EOI = 0xD9;
+	protected static final int MARKER_SOS = 0xDA;
+	protected static final int MARKER_APP1 = 0xE1;
+
+	/**
+	 * Exif tags
+	 */
+	protected static final int TAG_ORIENTATION = 0x0112;
+	protected static final int TAG_DATE_TIME = 0x0132;
+	protected static final int TAG_EXIF_IFD = 0x8769;
+	protected static final int TAG_GPS_IFD = 0x8825;
+	protected static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+	protected static final int TAG_GPS_LATITUDE_REF = 0x0001;
+	protected static final int TAG_GPS_LATITUDE = 0x0002;
+	protected static final int TAG_GPS_LONGITUDE_REF = 0x0003;
+	protected static final int TAG_GPS_LONGITUDE = 0x0004;
+	protected static final int TAG_GPS_ALTITUDE_REF = 0x0005;
+	protected static final int TAG_GPS_ALTITUDE = 0x0006;
+
+	/**
+	 * Exif field types and their sizes in bytes, indexed by type
+	 */
+	protected static final int TYPE_ASCII = 2;
+	protected static final int TYPE_SHORT = 3;
+	protected static final int TYPE_LONG = 4;
+	protected static final int TYPE_RATIONAL = 5;
+	protected static final int[] TYPE_SIZES = {0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8};
+
+	/**
+	 *
+	 */
+	protected static final int IFD_MAIN = 0;
+	protected static final int IFD_EXIF = 1;
+	protected static final int IFD_GPS = 2;
+
+	/**
+	 * "Exif\0\0" header of an APP1 segment
+	 */
+	protected static final int EXIF_HEADER_LENGTH = 6;
+
+	/**
+	 * Exif date time format "YYYY:MM:DD HH:MM:SS"
+	 */
+	protected static final int DATE_TIME_LENGTH = 19;
+
+	/**
+	 * State of the Exif segment being parsed
+	 */
+	protected byte[] segment;
+	protected int tiffStart;
+	protected boolean isLittleEndian;
+
+	/**
+	 * GPS values are collected per IFD and only combined once the GPS IFD has been read completely
+	 */
+	protected double latitude = Double.NaN;
+	protected double longitude = Double.NaN;
+	protected double altitude = 0.0;
+	protected boolean isSouth = false;
+	protected boolean isWest = false;
+	protected boolean isBelowSeaLevel = false;
+	protected long dateTimeOriginal = 0;
+	protected long dateTime = 0;
+
+	/**
+	 * @methodtype conversion
+	 * @methodproperties convenience, class
+	 */
+	public static ExifData read(InputStream in) throws IOException {
+		return new ExifReader().doRead(in);
+	}
+
+	/**
+	 *
+	 */
+	protected ExifReader() {
+		// do nothing
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	protected ExifData doRead(InputStream in) throws IOException {
+		ExifData result = new ExifData();
+		DataInputStream data = new DataInputStream(in);
+
+		if ((data.read() != MARKER_PREFIX) || (data.read() != MARKER_SOI)) {
+			return result; // not a JPEG file
+		}
+
+		while (true) {
+			if (data.read() != MARKER_PREFIX) {
+				return result; // corrupt or unsupported segment structure
+			}
+
+			int marker = data.read();
+			while (marker == MARKER_PREFIX) { // markers may be padded with fill bytes
+				marker = data.read();
+			}
+
+			if ((marker == -1) || (marker == MARKER_SOS) || (marker == MARKER_EOI)) {
+				return result; // reached image data, nothing more to look at
+			}
+
+			int length = data.readUnsignedShort() - 2;
+			if (length < 0) {
+				return result;
+			}
+
+			if (marker == MARKER_APP1 && length > EXIF_HEADER_LENGTH) {
+				segment = new byte[length];
+				data.readFully(segment);
+				if (isExifSegment()) {
+					parseExifSegment(result);
+					return result;
+				}
+			} else {
+				skipFully(data, length);
+			}
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void skipFully(DataInputStream data, int length) throws IOException {
+		while (length > 0) {
+			int skipped = data.skipBytes(length);
+			if (skipped <= 0) {
+				throw new IOException("unexpected end of JPEG stream");
+			}
+			length -= skipped;
+		}
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	protected boolean isExifSegment() {
+		return segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i' && segment[3] == 'f'
+				&& segment[4] == 0 && segment[5] == 0;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void parseExifSegment(ExifData result) {
+		tiffStart = EXIF_HEADER_LENGTH;
+		if (segment.length < tiffStart + 8) {
+			return;
+		}
+
+		if (segment[tiffStart] == 'I' && segment[tiffStart + 1] == 'I') {
+			isLittleEndian = true;
+		} else if (segment[tiffStart] == 'M' && segment[tiffStart + 1] == 'M') {
+			isLittleEndian = false;
+		} else {
+			return;
+		}
+
+		if (getUnsignedShort(tiffStart + 2) != 42) {
+			return;
+		}
+
+		parseIfd(getInt(tiffStart + 4), IFD_MAIN, result);
+
+		result.setCaptureTime((dateTimeOriginal != 0) ? dateTimeOriginal : dateTime);
+
+		if (!Double.isNaN(latitude) && !Double.isNaN(longitude)) {
+			double lat = isSouth ? -latitude : latitude;
+			double lon = isWest ? -longitude : longitude;
+			double alt = isBelowSeaLevel ? -altitude : altitude;
+			if (Double.isInfinite(alt) || !(Location.EARTH_RADIUS + alt > 0)) {
+				alt = 0.0; // below the center of the earth; keep the position at sea level
+			}
+			if (Math.abs(lat) <= 90.0 && Math.abs(lon) <= 180.0) {
+				result.setLocation(Location.fromGeographic(lat, lon, alt));
+			}
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void parseIfd(int offset, int ifdType, ExifData result) {
+		// compare before adding, as a corrupt offset may overflow
+		if (offset <= 0 || offset > segment.length - tiffStart - 2) {
+			return;
+		}
+		int start = tiffStart + offset;
+
+		int noEntries = getUnsignedShort(start);
+		for (int i = 0; i < noEntries; i++) {
+			int entry = start + 2 + i * 12;
+			if (entry + 12 > segment.length) {
+				return;
+			}
+
+			int tag = getUnsignedShort(entry);
+			int type = getUnsignedShort(entry + 2);
+			int count = getInt(entry + 4);
+			int valueStart = getValueStart(entry, type, count);
+			if (valueStart < 0) {
+				continue;
+			}
+
+			if (ifdType == IFD_MAIN) {
+				parseMainEntry(tag, type, valueStart, result);
+			} else if (ifdType == IFD_EXIF) {
+				parseExifEntry(tag, type, count, valueStart);
+			} else {
+				parseGpsEntry(tag, type, count, valueStart);
+			}
+		}
+	}
+
+	/**
+	 * Returns the absolute position of the value of an IFD entry, or -1 if it does not fit into the segment.
+	 *
+	 * @methodtype get
+	 */
+	protected int getValueStart(int entry, int type, int count) {
+		if (type <= 0 || type >= TYPE_SIZES.length || count < 0) {
+			return -1;
+		}
+
+		long size = (long) TYPE_SIZES[type] * count;
+		if (size <= 4) {
+			return (entry + 8 + size > segment.length) ? -1 : entry + 8;
+		}
+
+		int offset = getInt(entry + 8);
+		if (offset < 0 || offset > segment.length - tiffStart - size) {
+			return -1;
+		}
+
+		return tiffStart + offset;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void parseMainEntry(int tag, int type, int valueStart, ExifData result) {
+		switch (tag) {
+			case TAG_ORIENTATION:
+				if (type == TYPE_SHORT) {
+					int orientation = getUnsignedShort(valueStart);
+					if (orientation >= 1 && orientation <= 8) {
+						result.setOrientation(orientation);
+					}
+				}
+				break;
+			case TAG_DATE_TIME:
+				if (type == TYPE_ASCII) {
+					dateTime = getDateTime(valueStart);
+				}
+				break;
+			case TAG_EXIF_IFD:
+				if (type == TYPE_LONG) {
+					parseIfd(getInt(valueStart), IFD_EXIF, result);
+				}
+				break;
+			case TAG_GPS_IFD:
+				if (type == TYPE_LONG) {
+					parseIfd(getInt(valueStart), IFD_GPS, result);
+				}
+				break;
+			default:
+				// ignore
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void parseExifEntry(int tag, int type, int count, int valueStart) {
+		if (tag == TAG_DATE_TIME_ORIGINAL && type == TYPE_ASCII && count >= DATE_TIME_LENGTH) {
+			dateTimeOriginal = getDateTime(valueStart);
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void parseGpsEntry(int tag, int type, int count, int valueStart) {
+		switch (tag) {
+			case TAG_GPS_LATITUDE_REF:
+				isSouth = (count >= 1 && segment[valueStart] == 'S');
+				break;
+			case TAG_GPS_LATITUDE:
+				if (type == TYPE_RATIONAL && count >= 3) {
+					latitude = getDegrees(valueStart);
+				}
+				break;
+			case TAG_GPS_LONGITUDE_REF:
+				isWest = (count >= 1 && segment[valueStart] == 'W');
+				break;
+			case TAG_GPS_LONGITUDE:
+				if (type == TYPE_RATIONAL && count >= 3) {
+					longitude = getDegrees(valueStart);
+				}
+				break;
+			case TAG_GPS_ALTITUDE_REF:
+				isBelowSeaLevel = (count >= 1 && segment[valueStart] == 1);
+				break;
+			case TAG_GPS_ALTITUDE:
+				if (type == TYPE_RATIONAL && count >= 1) {
+					double value = getRational(valueStart);
+					altitude = Double.isNaN(value) ? 0.0 : value;
+				}
+				break;
+			default:
+				// ignore
+		}
+	}
+
+	/**
+	 * Converts degrees, minutes, and seconds (three rationals) to decimal degrees.
+	 *
+	 * @methodtype conversion
+	 */
+	protected double getDegrees(int start) {
+		return getRational(start) + getRational(start + 8) / 60.0 + getRational(start + 16) / 3600.0;
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	protected double getRational(int start) {
+		long numerator = getInt(start) & 0xFFFFFFFFL;
+		long denominator = getInt(start + 4) & 0xFFFFFFFFL;
+		return (denominator == 0) ? Double.NaN : (double) numerator / denominator;
+	}
+
+	/**
+	 * Parses "YYYY:MM:DD HH:MM:SS" into milliseconds since the epoch (UTC); returns 0 if malformed.
+	 *
+	 * @methodtype conversion
+	 */
+	protected long getDateTime(int start) {
+		if (start + DATE_TIME_LENGTH > segment.length) {
+			return 0;
+		}
+
+		int year = getDigits(start, 4);
+		int month = getDigits(start + 5, 2);
+		int day = getDigits(start + 8, 2);
+		int hour = getDigits(start + 11, 2);
+		int minute = getDigits(start + 14, 2);
+		int second = getDigits(start + 17, 2);
+
+		if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31
+				|| hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+			return 0;
+		}
+
+		long days = getDaysSinceEpoch(year, month, day);
+		return (((days * 24 + hour) * 60 + minute) * 60 + second) * 1000L;
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	protected int getDigits(int start, int length) {
+		int result = 0;
+		for (int i = start; i < start + length; i++) {
+			int digit = segment[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			result = result * 10 + digit;
+		}
+		return result;
+	}
+
+	/**
+	 * Days from 1970-01-01 to the given date of the proleptic Gregorian calendar.
+	 *
+	 * @methodtype conversion
+	 * @methodproperties class
+	 */
+	protected static long getDaysSinceEpoch(int year, int month, int day) {
+		int y = (month <= 2) ? year - 1 : year;
+		int era = y / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected int getUnsignedShort(int start) {
+		int b0 = segment[start] & 0xFF;
+		int b1 = segment[start + 1] & 0xFF;
+		return isLittleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected int getInt(int start) {
+		int b0 = segment[start] & 0xFF;
+		int b1 = segment[start + 1] & 0xFF;
+		int b2 = segment[start + 2] & 0xFF;
+		int b3 = segment[start + 3] & 0xFF;
+		if (isLittleEndian) {
+			return (b3 << 24) | (b2 << 16) | (b1 << 8) | b0;
+		} else {
+			return (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
+		}
+	}
+
+}
@@ -24,7 +24,8 @@ import com.googlecode.objectify.annotation.Subclass;
 import org.wahlzeit.services.EmailAddress;
 
 /**
- * A Guest is a client that is not logged in.
+ * A Guest is a client that is not logged in. Guests are ephemeral: their state lives in memory for the length of their
+ * session only, and whatever is worth keeping is taken over by the user they sign up or log in as.
  */
 @Subclass(index = true)
 public class Guest extends Client {
@@ -50,4 +51,13 @@ public class Guest extends Client {
 		String userId = GUEST_PREFIX + UserManager.getInstance().getNextClientId();
 		initialize(userId, userId, EmailAddress.EMPTY, AccessRights.GUEST, previousClient);
 	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	@Override
+	public boolean isEphemeral() {
+		return true;
+	}
+
 }
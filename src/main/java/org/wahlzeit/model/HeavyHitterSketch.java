@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Arrays;
+
+/**
+ * A HeavyHitterSketch finds the photos with the most weight in a stream of (photo id, weight) pairs, using the
+ * Space-Saving algorithm: it keeps a fixed number of counters; an id without one takes over the smallest, inheriting
+ * its count as error. Every id whose weight exceeds the total weight divided by the number of counters is sure to
+ * have a counter. The counters form a min-heap in primitive arrays, so adding weight is O(log m) and does not
+ * allocate.
+ *
+ * HeavyHitterSketch is not synchronized; TrendingPhotos guards its sketches.
+ */
+public class HeavyHitterSketch {
+
+	/**
+	 * Counted ids, their counts and the overestimation of their counts, as a min-heap by count
+	 */
+	protected final int[] ids;
+	protected final long[] counts;
+	protected final long[] errors;
+
+	/**
+	 *
+	 */
+	protected int size = 0;
+
+	/**
+	 * Heap position plus one of the counter of each id, 0 if it has none
+	 */
+	protected int[] positions = new int[64];
+
+	/**
+	 *
+	 */
+	public HeavyHitterSketch(int capacity) {
+		ids = new int[capacity];
+		counts = new long[capacity];
+		errors = new long[capacity];
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void add(int id, long weight) {
+		if (id >= positions.length) {
+			positions = Arrays.copyOf(positions, Math.max(id + 1, 2 * positions.length));
+		}
+
+		int position = positions[id] - 1;
+		if (position >= 0) {
+			counts[position] += weight;
+			siftDown(position);
+		} else if (size < ids.length) {
+			position = size++;
+			ids[position] = id;
+			counts[position] = weight;
+			errors[position] = 0;
+			positions[id] = position + 1;
+			siftUp(position);
+		} else {
+			positions[ids[0]] = 0;
+			ids[0] = id;
+			errors[0] = counts[0];
+			counts[0] += weight;
+			positions[id] = 1;
+			siftDown(0);
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[ids[i]] = 0;
+		}
+		size = 0;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the number of counted ids.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the i-th counted id, in no particular order.
+	 */
+	public int getId(int i) {
+		return ids[i];
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the count of the id, which overestimates its weight by at most its error; 0 if it is not counted.
+	 */
+	public long getCount(int id) {
+		int position = (id < positions.length) ? positions[id] - 1 : -1;
+		return (position >= 0) ? counts[position] : 0;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public long getError(int id) {
+		int position = (id < positions.length) ? positions[id] - 1 : -1;
+		return (position >= 0) ? errors[position] : 0;
+	}
+
+	/**
+	 *
+	 */
+	protected void siftUp(int position) {
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (counts[parent] <= counts[position]) {
+				return;
+			}
+			swap(position, parent);
+			position = parent;
+		}
+	}
+
+	/**
+	 *
+	 */
+	protected void siftDown(int position) {
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size) {
+				return;
+			}
+			if (child + 1 < size && counts[child + 1] < counts[child]) {
+				child++;
+			}
+			if (counts[position] <= counts[child]) {
+				return;
+			}
+			swap(position, child);
+			position = child;
+		}
+	}
+
+	/**
+	 *
+	 */
+	protected void swap(int i, int j) {
+		int id = ids[i];
+		long count = counts[i];
+		long error = errors[i];
+		ids[i] = ids[j];
+		counts[i] = counts[j];
+		errors[i] = errors[j];
+		ids[j] = id;
+		counts[j] = count;
+		errors[j] = error;
+		positions[ids[i]] = i + 1;
+		positions[ids[j]] = j + 1;
+	}
+
+}
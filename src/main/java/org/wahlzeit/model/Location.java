@@ -9,11 +9,24 @@
  */
 package org.wahlzeit.model;
 
+import java.io.Serializable;
+
 /**
  * A location represents a position in the real world (i.e., a position on the
  * Earth surface).
  */
-public class Location {
+public class Location implements Serializable {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Mean radius of the Earth in meters.
+	 */
+	public static final double EARTH_RADIUS = 6371000.0;
+
 	/*
 	 * The coordinate of this location.
 	 */
@@ -29,6 +42,30 @@ public class Location {
 		
 		this.coordinate = coordinate;
 	}
+
+	/**
+	 * Creates a location from geographic (e.g. GPS) coordinates.
+	 * <p>
+	 * The location is backed by a spherical coordinate centered in the Earth
+	 * with the zenith pointing to the North Pole and the azimuth direction
+	 * pointing to the prime meridian.
+	 * 
+	 * @param latitude the latitude in degrees, positive to the north
+	 * @param longitude the longitude in degrees, positive to the east
+	 * @param altitude the altitude above sea level in meters
+	 * @return a new location
+	 */
+	public static Location fromGeographic(double latitude, double longitude, double altitude) {
+		if (!(Math.abs(latitude) <= 90.0) || !(Math.abs(longitude) <= 180.0))
+			throw new IllegalArgumentException("Latitude or longitude out of range");
+		
+		// The spherical coordinate requires θ < π, so the South Pole is
+		// moved by the smallest possible amount.
+		double theta = Math.min(Math.toRadians(90.0 - latitude), Math.nextDown(Math.PI));
+		double phi = Math.toRadians(longitude);
+		
+		return new Location(new SphericCoordinate(EARTH_RADIUS + altitude, theta, phi));
+	}
 	
 	/**
 	 * @return the coordinate
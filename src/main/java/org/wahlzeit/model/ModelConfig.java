@@ -190,6 +190,9 @@ public interface ModelConfig extends Configuration, Serializable {
 	// SHOW_PHOTO_CASE_FORM
 	String getNoFlaggedPhotoCases();
 
+	// SEARCH_PHOTOS_FORM
+	String getNoPhotosFound();
+
 	// SHOW_ADMIN_MENU_FORM
 	String getPhotoIsUnknown();
 
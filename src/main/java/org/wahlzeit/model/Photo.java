@@ -35,6 +35,7 @@ import com.googlecode.objectify.annotation.Entity;
 import com.googlecode.objectify.annotation.Id;
 import com.googlecode.objectify.annotation.Ignore;
 import com.googlecode.objectify.annotation.Parent;
+import com.googlecode.objectify.annotation.Serialize;
 
 /**
  * A photo represents a user-provided (uploaded) photo.
@@ -66,6 +67,8 @@ public class Photo extends DataObject {
 	public static final String STATUS = "status";
 	public static final String IS_INVISIBLE = "isInvisible";
 	public static final String UPLOADED_ON = "uploadedOn";
+	public static final String CAPTURED_ON = "capturedOn";
+	public static final String ORIENTATION = "orientation";
 
 	/**
 	 *
@@ -75,6 +78,12 @@ public class Photo extends DataObject {
 	public static final int MAX_THUMB_PHOTO_WIDTH = 105;
 	public static final int MAX_THUMB_PHOTO_HEIGHT = 150;
 
+	/**
+	 * Range of a single vote
+	 */
+	public static final int MIN_PRAISE = 1;
+	public static final int MAX_PRAISE = 10;
+
 	protected PhotoId id = null;
 	
 	/**
@@ -107,8 +116,21 @@ public class Photo extends DataObject {
 	 *
 	 */
 	protected Tags tags = Tags.EMPTY_TAGS;
+
+	/**
+	 * The Tag entities last saved for this photo by their text; null if not known, e.g. for a photo just loaded
+	 */
+	@Ignore
+	transient protected Map<String, Tag> savedTags = null;
+	@Serialize // location is polymorphic via its coordinate
 	protected Location location;
 
+	/**
+	 * As taken from the Exif data of the uploaded file, if any
+	 */
+	protected long captureTime = 0;
+	protected int orientation = ExifData.DEFAULT_ORIENTATION;
+
 	/**
 	 *
 	 */
@@ -198,6 +220,7 @@ public class Photo extends DataObject {
 	public void setOwnerId(String newName) {
 		ownerId = newName;
 		incWriteCount();
+		PhotoManager.getInstance().photoChanged(this);
 	}
 
 	/**
@@ -344,6 +367,13 @@ public class Photo extends DataObject {
 		return (double) praiseSum / noVotes;
 	}
 
+	/**
+	 * @methodtype get
+	 */
+	public int getNoVotes() {
+		return noVotes;
+	}
+
 	/**
 	 *
 	 */
@@ -351,6 +381,9 @@ public class Photo extends DataObject {
 		praiseSum += value;
 		noVotes += 1;
 		incWriteCount();
+		PhotoManager.getInstance().photoChanged(this);
+		PhotoManager.getInstance().getTrendingPhotos().addPraise(id, value, System.currentTimeMillis());
+		PhotoEventBus.getInstance().publish(this);
 	}
 
 	/**
@@ -373,6 +406,8 @@ public class Photo extends DataObject {
 	public void setStatus(PhotoStatus newStatus) {
 		status = newStatus;
 		incWriteCount();
+		PhotoManager.getInstance().photoChanged(this);
+		PhotoEventBus.getInstance().publish(this);
 	}
 
 	/**
@@ -393,8 +428,23 @@ public class Photo extends DataObject {
 	 * @methodtype set
 	 */
 	public void setTags(Tags newTags) {
-		tags = newTags;
+		tags = newTags.intern();
 		incWriteCount();
+		PhotoManager.getInstance().photoChanged(this);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public Map<String, Tag> getSavedTags() {
+		return savedTags;
+	}
+
+	/**
+	 * @methodtype set
+	 */
+	public void setSavedTags(Map<String, Tag> newSavedTags) {
+		savedTags = newSavedTags;
 	}
 
 	/**
@@ -409,6 +459,37 @@ public class Photo extends DataObject {
 	 */
 	public void setLocation(Location location) {
 		this.location = location;
+		incWriteCount();
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public long getCaptureTime() {
+		return captureTime;
+	}
+
+	/**
+	 * @methodtype set
+	 */
+	public void setCaptureTime(long newCaptureTime) {
+		captureTime = newCaptureTime;
+		incWriteCount();
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int getOrientation() {
+		return orientation;
+	}
+
+	/**
+	 * @methodtype set
+	 */
+	public void setOrientation(int newOrientation) {
+		orientation = newOrientation;
+		incWriteCount();
 	}
 
 	/**
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A PhotoAttributeIndex is a secondary index over the cached photos: from owner id to the ids of the owner's photos,
+ * and from photo status to a bitmap of the ids of the photos with that status. It is kept in line with the photos as
+ * their owner or status is set, so looking up photos by owner or status is a memory read instead of a query.
+ */
+public class PhotoAttributeIndex {
+
+	/**
+	 * Ids of the photos of each owner
+	 */
+	protected final Map<String, Set<PhotoId>> ownerPhotoIds = new HashMap<String, Set<PhotoId>>();
+
+	/**
+	 * Ids of the photos with each status, by PhotoStatus int value
+	 */
+	protected final PhotoIdSet[] statusPhotoIds = new PhotoIdSet[PhotoStatus.values().length];
+
+	/**
+	 * Owner id each indexed photo is listed under
+	 */
+	protected final Map<PhotoId, String> photoOwners = new HashMap<PhotoId, String>();
+
+	/**
+	 * Status each indexed photo is listed under
+	 */
+	protected final Map<PhotoId, PhotoStatus> photoStatuses = new HashMap<PhotoId, PhotoStatus>();
+
+	/**
+	 *
+	 */
+	public PhotoAttributeIndex() {
+		for (int i = 0; i < statusPhotoIds.length; i++) {
+			statusPhotoIds[i] = new PhotoIdSet();
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * (Re-)indexes the photo under its current owner and status.
+	 */
+	public synchronized void update(Photo photo) {
+		PhotoId id = photo.getId();
+
+		String oldOwnerId = photoOwners.get(id);
+		String newOwnerId = photo.getOwnerId();
+		if (oldOwnerId == null ? newOwnerId != null : !oldOwnerId.equals(newOwnerId)) {
+			removeOwner(oldOwnerId, id);
+			addOwner(newOwnerId, id);
+		}
+
+		PhotoStatus newStatus = photo.getStatus();
+		PhotoStatus oldStatus = photoStatuses.put(id, newStatus);
+		if (oldStatus != newStatus) {
+			if (oldStatus != null) {
+				statusPhotoIds[oldStatus.asInt()].remove(id);
+			}
+			statusPhotoIds[newStatus.asInt()].add(id);
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized void remove(PhotoId id) {
+		removeOwner(photoOwners.get(id), id);
+		PhotoStatus oldStatus = photoStatuses.remove(id);
+		if (oldStatus != null) {
+			statusPhotoIds[oldStatus.asInt()].remove(id);
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void addOwner(String ownerId, PhotoId id) {
+		if (ownerId == null) {
+			return;
+		}
+
+		Set<PhotoId> photoIds = ownerPhotoIds.get(ownerId);
+		if (photoIds == null) {
+			photoIds = new HashSet<PhotoId>();
+			ownerPhotoIds.put(ownerId, photoIds);
+		}
+		photoIds.add(id);
+		photoOwners.put(id, ownerId);
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void removeOwner(String ownerId, PhotoId id) {
+		if (ownerId == null) {
+			return;
+		}
+
+		Set<PhotoId> photoIds = ownerPhotoIds.get(ownerId);
+		photoIds.remove(id);
+		if (photoIds.isEmpty()) {
+			ownerPhotoIds.remove(ownerId);
+		}
+		photoOwners.remove(id);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns a copy of the ids of the photos of the owner.
+	 */
+	public synchronized Set<PhotoId> getPhotoIdsOfOwner(String ownerId) {
+		Set<PhotoId> photoIds = ownerPhotoIds.get(ownerId);
+		return (photoIds == null) ? Collections.<PhotoId>emptySet() : new HashSet<PhotoId>(photoIds);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int getNoPhotosOfOwner(String ownerId) {
+		Set<PhotoId> photoIds = ownerPhotoIds.get(ownerId);
+		return (photoIds == null) ? 0 : photoIds.size();
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns a copy of the ids of the photos with any of the statuses.
+	 */
+	public synchronized PhotoIdSet getPhotoIdsWithStatus(PhotoStatus... statuses) {
+		PhotoIdSet result = new PhotoIdSet();
+		for (PhotoStatus status : statuses) {
+			result.addAll(statusPhotoIds[status.asInt()]);
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int getNoPhotosWithStatus(PhotoStatus status) {
+		return statusPhotoIds[status.asInt()].size();
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import com.google.appengine.api.images.Image;
+import com.google.appengine.api.images.ImagesService;
+import com.google.appengine.api.images.ImagesServiceFactory;
+import com.google.appengine.api.images.Transform;
+import org.wahlzeit.services.LogBuilder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * The photo derivative manager provides photos in widths other than the fixed photo sizes. Requested widths are
+ * snapped to a small ladder of allowed widths, so only few derivatives exist per photo. A derivative is scaled down
+ * from the nearest larger stored rendition and kept in a cache that is bounded by the number of bytes it holds.
+ */
+public class PhotoDerivativeManager {
+
+	private static final Logger log = Logger.getLogger(PhotoDerivativeManager.class.getName());
+
+	/**
+	 * Allowed widths, in ascending order
+	 */
+	protected static final int[] WIDTH_LADDER = {
+			160, 240, 320, 420, 480, 640, 840
+	};
+
+	/**
+	 *
+	 */
+	public static final long MAX_CACHE_SIZE_IN_BYTES = 32L * 1024 * 1024;
+
+	/**
+	 *
+	 */
+	protected static final PhotoDerivativeManager instance = new PhotoDerivativeManager();
+
+	/**
+	 *
+	 */
+	protected final LinkedHashMap<String, Image> derivatives = new LinkedHashMap<String, Image>(16, 0.75f, true);
+	protected long cacheSizeInBytes = 0;
+
+	/**
+	 *
+	 */
+	public static PhotoDerivativeManager getInstance() {
+		return instance;
+	}
+
+	/**
+	 *
+	 */
+	protected PhotoDerivativeManager() {
+		// do nothing
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public static int[] getWidthLadder() {
+		return WIDTH_LADDER.clone();
+	}
+
+	/**
+	 * @methodtype conversion
+	 *
+	 * Returns the smallest allowed width that is at least the requested width, or the largest allowed width.
+	 */
+	public static int snapWidth(int width) {
+		for (int allowedWidth : WIDTH_LADDER) {
+			if (allowedWidth >= width) {
+				return allowedWidth;
+			}
+		}
+		return WIDTH_LADDER[WIDTH_LADDER.length - 1];
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the smallest stored rendition of the photo that is at least the given width, or the largest one.
+	 */
+	public static PhotoSize getSourceSize(Photo photo, int width) {
+		PhotoSize result = PhotoSize.THUMB;
+		for (PhotoSize size : PhotoSize.values()) {
+			if (!photo.hasPhotoSize(size)) {
+				break;
+			}
+			result = size;
+			if (size.calcAdjustedWidth(photo.getWidth(), photo.getHeight()) >= width) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the photo scaled to the snapped width. Photos are never scaled up; if no stored rendition is wide enough,
+	 * the largest one is returned as is. Returns null if the source rendition can not be loaded.
+	 */
+	public Image getDerivative(Photo photo, int width) {
+		int targetWidth = snapWidth(width);
+		PhotoSize sourceSize = getSourceSize(photo, targetWidth);
+		Image source = PhotoManager.getInstance().getScaledImage(photo.getId(), sourceSize);
+		if (source == null || source.getWidth() <= targetWidth) {
+			return source;
+		}
+
+		String key = photo.getId().asString() + "/" + targetWidth;
+		synchronized (derivatives) {
+			Image result = derivatives.get(key);
+			if (result != null) {
+				return result;
+			}
+		}
+
+		int targetHeight = Math.max(1, source.getHeight() * targetWidth / source.getWidth());
+		ImagesService imagesService = ImagesServiceFactory.getImagesService();
+		Transform resize = ImagesServiceFactory.makeResize(targetWidth, targetHeight);
+		Image result = imagesService.applyTransform(resize, ImagesServiceFactory.makeImage(source.getImageData()));
+
+		log.config(LogBuilder.createSystemMessage().
+				addAction("Scale photo derivative").
+				addParameter("photo ID", photo.getId().asString()).
+				addParameter("source size", sourceSize.asString()).
+				addParameter("width", targetWidth).toString());
+
+		putDerivative(key, result);
+		return result;
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Adds the derivative to the cache and evicts the least recently used ones until the cache fits its bound.
+	 */
+	protected void putDerivative(String key, Image derivative) {
+		long size = derivative.getImageData().length;
+		if (size > MAX_CACHE_SIZE_IN_BYTES) {
+			return;
+		}
+
+		synchronized (derivatives) {
+			Image previous = derivatives.put(key, derivative);
+			if (previous != null) {
+				cacheSizeInBytes -= previous.getImageData().length;
+			}
+			cacheSizeInBytes += size;
+
+			Iterator<Map.Entry<String, Image>> it = derivatives.entrySet().iterator();
+			while (cacheSizeInBytes > MAX_CACHE_SIZE_IN_BYTES && it.hasNext()) {
+				cacheSizeInBytes -= it.next().getValue().getImageData().length;
+				it.remove();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+/**
+ * A PhotoEvent records the praise and status of a photo right after one of them changed. Events are snapshots, so a
+ * later event for the same photo supersedes all earlier ones.
+ */
+public class PhotoEvent {
+
+	/**
+	 *
+	 */
+	protected final long sequence;
+	protected final PhotoId photoId;
+	protected final double praise;
+	protected final int noVotes;
+	protected final PhotoStatus status;
+
+	/**
+	 *
+	 */
+	public PhotoEvent(long mySequence, Photo photo) {
+		sequence = mySequence;
+		photoId = photo.getId();
+		praise = photo.getPraise();
+		noVotes = photo.getNoVotes();
+		status = photo.getStatus();
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoId getPhotoId() {
+		return photoId;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public double getPraise() {
+		return praise;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int getNoVotes() {
+		return noVotes;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoStatus getStatus() {
+		return status;
+	}
+
+}
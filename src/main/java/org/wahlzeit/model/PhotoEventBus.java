@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The PhotoEventBus passes changes of praise and status from photos to subscribers within this instance.
+ *
+ * Events are kept in a bounded ring buffer; publishing only holds the lock to store the event and never allocates
+ * beyond the event itself. Each subscription reads at its own pace from its own position, and scans the buffer
+ * outside the lock, so a slow reader does not hold up publishers. A subscriber that falls behind by more than the
+ * buffer holds is not waited for; instead, its subscription is marked as overrun, so it can start over from the
+ * current state of the photos.
+ */
+public class PhotoEventBus {
+
+	/**
+	 *
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 *
+	 */
+	protected static final PhotoEventBus instance = new PhotoEventBus(DEFAULT_CAPACITY);
+
+	/**
+	 *
+	 */
+	public static PhotoEventBus getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Ring buffer; the event with sequence number s is at s % events.length
+	 */
+	protected final PhotoEvent[] events;
+
+	/**
+	 * Sequence number of the next event to be published; guarded by this
+	 */
+	protected long nextSequence = 1;
+
+	/**
+	 *
+	 */
+	public PhotoEventBus(int capacity) {
+		events = new PhotoEvent[capacity];
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized void publish(Photo photo) {
+		events[(int) (nextSequence % events.length)] = new PhotoEvent(nextSequence, photo);
+		nextSequence++;
+		notifyAll();
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized long getNextSequence() {
+		return nextSequence;
+	}
+
+	/**
+	 * @methodtype factory
+	 *
+	 * Subscribes to the events of the given photos, starting with the event of the given sequence number.
+	 */
+	public Subscription subscribe(Set<PhotoId> photoIds, long fromSequence) {
+		return new Subscription(photoIds, fromSequence);
+	}
+
+	/**
+	 * @methodtype factory
+	 *
+	 * Subscribes to the events of the given photos, starting with the next one published.
+	 */
+	public Subscription subscribe(Set<PhotoId> photoIds) {
+		return subscribe(photoIds, getNextSequence());
+	}
+
+	/**
+	 * A Subscription reads the events of a set of photos, coalescing those of the same photo into the latest one.
+	 */
+	public class Subscription {
+
+		/**
+		 *
+		 */
+		protected final Set<PhotoId> photoIds;
+
+		/**
+		 * Sequence number of the next event to read
+		 */
+		protected long sequence;
+
+		/**
+		 *
+		 */
+		protected boolean isOverrun = false;
+
+		/**
+		 *
+		 */
+		protected Subscription(Set<PhotoId> myPhotoIds, long mySequence) {
+			photoIds = myPhotoIds;
+			sequence = mySequence;
+		}
+
+		/**
+		 * @methodtype get
+		 *
+		 * Sequence number of the next event to read; after reading, all earlier events have been seen.
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * @methodtype boolean-query
+		 *
+		 * Tells whether events have been lost, because they were overwritten before they were read.
+		 */
+		public boolean isOverrun() {
+			return isOverrun;
+		}
+
+		/**
+		 * @methodtype command
+		 *
+		 * Waits up to timeout millis for events and returns the latest event of each subscribed photo that changed,
+		 * in the order of these latest events. Returns an empty collection on timeout or if the subscription is
+		 * overrun.
+		 */
+		public Collection<PhotoEvent> awaitEvents(long timeout) throws InterruptedException {
+			long end;
+			synchronized (PhotoEventBus.this) {
+				if (sequence == nextSequence && !isOverrun && timeout > 0) {
+					PhotoEventBus.this.wait(timeout);
+				}
+
+				if (isOverrun || sequence > nextSequence || nextSequence - sequence > events.length) {
+					isOverrun = true;
+					return Collections.emptyList();
+				}
+
+				end = nextSequence;
+			}
+
+			// events before end were stored before the lock was released; one that has been overwritten since carries
+			// a later sequence number, which shows the subscription fell behind
+			Map<PhotoId, PhotoEvent> result = new LinkedHashMap<PhotoId, PhotoEvent>();
+			for (; sequence < end; sequence++) {
+				PhotoEvent event = events[(int) (sequence % events.length)];
+				if (event.getSequence() != sequence) {
+					isOverrun = true;
+					return Collections.emptyList();
+				}
+
+				if (photoIds.contains(event.getPhotoId())) {
+					result.remove(event.getPhotoId());
+					result.put(event.getPhotoId(), event);
+				}
+			}
+			return result.values();
+		}
+
+	}
+
+}
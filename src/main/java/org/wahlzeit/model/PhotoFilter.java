@@ -23,10 +23,11 @@ package org.wahlzeit.model;
 import org.wahlzeit.services.LogBuilder;
 import org.wahlzeit.utils.StringUtil;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 import java.util.logging.Logger;
@@ -34,35 +35,59 @@ import java.util.logging.Logger;
 /**
  * A class to specify a photo filter.
  * A photo filter captures selection ("filtering") criteria for photos.
+ *
+ * Photo filters are kept in the HttpSession. Their serialized form holds the criteria and the processed and skipped
+ * photos in a compact, versioned format; the displayable photos are derived state and are not written.
  */
-public class PhotoFilter implements Serializable {
+public class PhotoFilter implements Externalizable {
 
 	private static Logger log = Logger.getLogger(PhotoFilter.class.getName());
 
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Version of the serialized form; readExternal rejects any other
+	 */
+	protected static final int FORMAT_VERSION = 3;
+
 	/**
 	 *
 	 */
 	public static final String USER_NAME = "userName";
 	public static final String TAGS = "tags";
 
+	/**
+	 * Maximum length of the tags criterion, which also keeps it within what writeUTF can write
+	 */
+	public static final int MAX_TAGS_CRITERION_LENGTH = 1024;
+
 	/**
 	 *
 	 */
 	protected String userName = "";
 	protected Tags tags = Tags.EMPTY_TAGS;
+	protected TagQuery tagQuery = TagQuery.EMPTY_QUERY;
 
 	/**
 	 *
 	 */
 	protected List<PhotoId> displayablePhotoIds;
-	protected List<PhotoId> processedPhotoIds = new LinkedList<PhotoId>();
-	protected List<PhotoId> skippedPhotoIds = new LinkedList<PhotoId>();
+	protected PhotoIdSet processedPhotoIds = new PhotoIdSet();
+	protected PhotoIdSet skippedPhotoIds = new PhotoIdSet();
 
 	/**
 	 *
 	 */
 	protected Random randomNumber = new Random(System.currentTimeMillis());
 
+	/**
+	 * Whether the criteria changed since they were last written; the photo id sets track their own changes
+	 */
+	protected transient boolean isDirty = false;
+
 	/**
 	 *
 	 */
@@ -83,6 +108,7 @@ public class PhotoFilter implements Serializable {
 	public void clear() {
 		setUserName("");
 		setTags(Tags.EMPTY_TAGS);
+		setTagQuery(TagQuery.EMPTY_QUERY);
 		displayablePhotoIds.clear();
 		processedPhotoIds.clear();
 	}
@@ -92,6 +118,7 @@ public class PhotoFilter implements Serializable {
 	 */
 	public void setUserName(String newUserName) {
 		userName = newUserName;
+		isDirty = true;
 		resetDisplayablePhotoIds();
 	}
 
@@ -107,9 +134,70 @@ public class PhotoFilter implements Serializable {
 	 */
 	public void setTags(Tags newTags) {
 		tags = newTags;
+		isDirty = true;
+		resetDisplayablePhotoIds();
+	}
+
+	/**
+	 *
+	 */
+	public TagQuery getTagQuery() {
+		return tagQuery;
+	}
+
+	/**
+	 *
+	 */
+	public void setTagQuery(TagQuery newTagQuery) {
+		tagQuery = newTagQuery;
+		isDirty = true;
 		resetDisplayablePhotoIds();
 	}
 
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the tags criterion as entered, either a tag query or a list of tags.
+	 */
+	public String getTagsCriterion() {
+		return tagQuery.isEmpty() ? tags.asString() : tagQuery.asString();
+	}
+
+	/**
+	 * @methodtype set
+	 *
+	 * Sets the tags criterion from user input: a plain list of tags as before, or a tag query if s uses its syntax. A
+	 * malformed query is taken as a list of tags, which drops the operators.
+	 *
+	 * @throws IllegalArgumentException if s is longer than MAX_TAGS_CRITERION_LENGTH
+	 */
+	public void setTagsCriterion(String s) {
+		if (s != null && s.length() > MAX_TAGS_CRITERION_LENGTH) {
+			throw new IllegalArgumentException("tags criterion longer than " + MAX_TAGS_CRITERION_LENGTH);
+		}
+
+		TagQuery newTagQuery = TagQuery.EMPTY_QUERY;
+		if (TagQuery.isQuery(s)) {
+			try {
+				newTagQuery = TagQuery.parse(s);
+			} catch (IllegalArgumentException ex) {
+				log.config(LogBuilder.createSystemMessage().
+						addParameter("Malformed tag query", s).
+						addParameter("Reason", ex.getMessage()).toString());
+			}
+		}
+
+		setTags(newTagQuery.isEmpty() ? new Tags(s) : Tags.EMPTY_TAGS);
+		setTagQuery(newTagQuery);
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean hasConditions() {
+		return !tagQuery.isEmpty() || !getFilterConditions().isEmpty();
+	}
+
 	/**
 	 *
 	 */
@@ -130,9 +218,9 @@ public class PhotoFilter implements Serializable {
 			filterConditions.add("un:" + Tags.asTag(un));
 		}
 
-		String[] tags = getTags().asArray();
-		for (int i = 0; i < tags.length; i++) {
-			filterConditions.add("tg:" + tags[i]);
+		Tags tags = getTags();
+		for (int i = 0; i < tags.getSize(); i++) {
+			filterConditions.add("tg:" + tags.getTag(i));
 		}
 	}
 
@@ -149,13 +237,34 @@ public class PhotoFilter implements Serializable {
 	public PhotoId getRandomDisplayablePhotoId() {
 		if (!displayablePhotoIds.isEmpty()) {
 			int size = displayablePhotoIds.size();
-			int index = ((randomNumber.nextInt() % size) + size) / 2;
+			int index = randomNumber.nextInt(size);
 			return displayablePhotoIds.get(index);
 		} else {
 			return PhotoId.NULL_ID;
 		}
 	}
 
+	/**
+	 * Get a recommended visible photo that has not been rated or skipped; only works for a filter without conditions.
+	 * Returns the null id if the recommender finds none.
+	 */
+	public PhotoId getRecommendedPhotoId(PhotoRecommender recommender, PhotoIdSet praisedPhotoIds) {
+		return recommender.getRecommendedId(randomNumber, System.currentTimeMillis(), praisedPhotoIds,
+				processedPhotoIds, skippedPhotoIds);
+	}
+
+	/**
+	 * Get a random visible photo that has not been rated, without listing the candidates first; only works for a
+	 * filter without conditions. If possible avoid skipped photos.
+	 */
+	public PhotoId getRandomVisiblePhotoId(PhotoIdIndex visiblePhotoIds) {
+		PhotoId result = visiblePhotoIds.getRandomId(randomNumber, processedPhotoIds, skippedPhotoIds);
+		if (result.isNullId()) {
+			result = skippedPhotoIds.getRandomId(randomNumber);
+		}
+		return result;
+	}
+
 	/**
 	 *
 	 */
@@ -180,7 +289,7 @@ public class PhotoFilter implements Serializable {
 	/**
 	 *
 	 */
-	public List<PhotoId> getProcessedPhotoIds() {
+	public PhotoIdSet getProcessedPhotoIds() {
 		return processedPhotoIds;
 	}
 
@@ -188,10 +297,6 @@ public class PhotoFilter implements Serializable {
 	 *
 	 */
 	public boolean isProcessedPhotoId(PhotoId photoId) {
-		log.info("photoId: " + photoId.asString());
-		for (PhotoId id : processedPhotoIds) {
-			log.info("Processed id: " + id.asString());
-		}
 		return processedPhotoIds.contains(photoId);
 	}
 
@@ -211,63 +316,101 @@ public class PhotoFilter implements Serializable {
 	/**
 	 * @methodtype get
 	 */
-	public List<PhotoId> getSkippedPhotoIds() {
+	public PhotoIdSet getSkippedPhotoIds() {
 		return skippedPhotoIds;
 	}
 
 	/**
 	 * @methodtype set
 	 */
-	public void setSkippedPhotoIds(List<PhotoId> skippedPhotoIds) {
-		this.skippedPhotoIds = skippedPhotoIds;
+	public void addSkippedPhotoId(PhotoId skippedPhotoId) {
+		skippedPhotoIds.add(skippedPhotoId);
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean isDirty() {
+		return isDirty || processedPhotoIds.isDirty() || skippedPhotoIds.isDirty();
 	}
 
 	/**
 	 * @methodtype set
 	 */
-	public void addSkippedPhotoId(PhotoId skippedPhotoId) {
-		if (!skippedPhotoIds.contains(skippedPhotoId)) {
-			skippedPhotoIds.add(skippedPhotoId);
-		}
+	public void resetDirty() {
+		isDirty = false;
+		processedPhotoIds.resetDirty();
+		skippedPhotoIds.resetDirty();
+	}
+
+	/**
+	 *
+	 */
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeByte(FORMAT_VERSION);
+		out.writeUTF(userName);
+		out.writeUTF(tags.asString());
+		out.writeUTF(tagQuery.asString());
+		processedPhotoIds.writeExternal(out);
+		skippedPhotoIds.writeExternal(out);
 	}
 
 	/**
 	 *
 	 */
+	public void readExternal(ObjectInput in) throws IOException {
+		PhotoIdSet.assertIsKnownVersion(in.readByte(), FORMAT_VERSION, PhotoFilter.class);
+		userName = in.readUTF();
+		tags = new Tags(in.readUTF());
+		tagQuery = TagQuery.parse(in.readUTF());
+		processedPhotoIds.readExternal(in);
+		skippedPhotoIds.readExternal(in);
+		isDirty = false;
+	}
+
+	/**
+	 * Collects the candidates as a bitmap over the photo ids, so removing the processed and skipped photos is a
+	 * bitwise and-not rather than a lookup per candidate. Photos must match all filter conditions and the tag query;
+	 * both are evaluated on the in-memory tag index.
+	 */
 	protected List<PhotoId> getFilteredPhotoIds() {
-		// get all tags that match the filter conditions
-		List<PhotoId> result = new LinkedList<PhotoId>();
+		List<PhotoId> result = new ArrayList<PhotoId>();
 		int noFilterConditions = getFilterConditions().size();
 		log.config(LogBuilder.createSystemMessage().
 				addParameter("Number of filter conditions", String.valueOf(noFilterConditions)).toString());
 
-		Collection<PhotoId> candidates;
-		if (noFilterConditions == 0) {
-			candidates = PhotoManager.getInstance().getPhotoCache().keySet();
-		} else {
-			List<Tag> tags = new LinkedList<Tag>();
-			candidates = new LinkedList<PhotoId>();
-			for (String condition : getFilterConditions()) {
-				PhotoManager.getInstance().addTagsThatMatchCondition(tags, condition);
+		PhotoTagIndex photoTagIndex = PhotoManager.getInstance().getPhotoTagIndex();
+		PhotoIdSet candidates;
+		if (noFilterConditions != 0) {
+			candidates = photoTagIndex.getPhotoIdsMatchingAll(getFilterConditions());
+			if (!tagQuery.isEmpty()) {
+				candidates.retainAll(photoTagIndex.getPhotoIdsMatching(tagQuery));
 			}
-			// get the list of all photo ids that correspond to the tags
-			for (Tag tag : tags) {
-				candidates.add(PhotoId.getIdFromString(tag.getPhotoId()));
+		} else if (!tagQuery.isEmpty()) {
+			candidates = photoTagIndex.getPhotoIdsMatching(tagQuery);
+		} else {
+			candidates = new PhotoIdSet();
+			for (PhotoId id : PhotoManager.getInstance().getPhotoCache().keySet()) {
+				candidates.add(id);
 			}
 		}
 
-		int newPhotos = 0;
+		candidates.removeAll(processedPhotoIds);
+		candidates.removeAll(skippedPhotoIds);
+
 		for (PhotoId candidateId : candidates) {
-			Photo photoCandidate = PhotoManager.getInstance().getPhoto(candidateId);
-			if (!processedPhotoIds.contains(candidateId) && !skippedPhotoIds.contains(candidateId) &&
-					photoCandidate.isVisible()) {
+			Photo photoCandidate = candidateId.isNullId() ? null : PhotoManager.getInstance().getPhoto(candidateId);
+			if (photoCandidate != null && photoCandidate.isVisible()) {
 				result.add(candidateId);
-				++newPhotos;
 			}
 		}
+
+		int newPhotos = result.size();
 		int skippedPhotos = skippedPhotoIds.size();
 		if (newPhotos == 0 && skippedPhotos > 0) {
-			result.addAll(skippedPhotoIds);
+			for (PhotoId skippedPhotoId : skippedPhotoIds) {
+				result.add(skippedPhotoId);
+			}
 			newPhotos = skippedPhotos;
 		}
 
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * A PhotoIdIndex is a set of photo ids that can be sampled uniformly at random in constant time. The ids are kept
+ * densely in an array, with their positions in a second array for constant time removal, and as a bitmap for
+ * membership tests and rank/select.
+ */
+public class PhotoIdIndex {
+
+	/**
+	 * Number of random draws before sampling falls back to select over the bitmap
+	 */
+	public static final int MAX_NO_DRAWS = 32;
+
+	/**
+	 *
+	 */
+	protected int[] ids = new int[64];
+	protected int size = 0;
+
+	/**
+	 * Position of each member in ids, indexed by id
+	 */
+	protected int[] positions = new int[64];
+
+	/**
+	 *
+	 */
+	protected final BitSet members = new BitSet();
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized boolean add(PhotoId id) {
+		int value = id.asInt();
+		if (members.get(value)) {
+			return false;
+		}
+
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, 2 * size);
+		}
+		if (value >= positions.length) {
+			positions = Arrays.copyOf(positions, Math.max(value + 1, 2 * positions.length));
+		}
+
+		ids[size] = value;
+		positions[value] = size;
+		size++;
+		members.set(value);
+		return true;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized boolean remove(PhotoId id) {
+		int value = id.asInt();
+		if (!members.get(value)) {
+			return false;
+		}
+
+		// move the last id into the gap
+		int position = positions[value];
+		int last = ids[--size];
+		ids[position] = last;
+		positions[last] = position;
+		members.clear(value);
+		return true;
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public synchronized boolean contains(PhotoId id) {
+		return members.get(id.asInt());
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the smallest id of this index that is not below the given one, or -1 if there is none.
+	 */
+	public synchronized int nextId(int from) {
+		return members.nextSetBit(Math.max(0, from));
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns a random id of this index that is in none of the excluded sets, or the null id if there is none. Draws
+	 * at random first, which takes constant expected time as long as most ids are not excluded; if every draw hits an
+	 * excluded id, it selects uniformly among the eligible ids over the bitmap instead.
+	 */
+	public synchronized PhotoId getRandomId(Random random, PhotoIdSet... excluded) {
+		if (size == 0) {
+			return PhotoId.NULL_ID;
+		}
+
+		for (int i = 0; i < MAX_NO_DRAWS; i++) {
+			PhotoId candidate = PhotoId.getIdFromInt(ids[random.nextInt(size)]);
+			if (!isExcluded(candidate, excluded)) {
+				return candidate;
+			}
+		}
+
+		BitSet eligible = (BitSet) members.clone();
+		for (PhotoIdSet photoIds : excluded) {
+			photoIds.removeAllFrom(eligible);
+		}
+		return select(eligible, random);
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	protected boolean isExcluded(PhotoId id, PhotoIdSet... excluded) {
+		for (PhotoIdSet photoIds : excluded) {
+			if (photoIds.contains(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns a uniformly chosen id of the bitmap, or the null id if it is empty.
+	 */
+	public static PhotoId select(BitSet ids, Random random) {
+		int noIds = ids.cardinality();
+		if (noIds == 0) {
+			return PhotoId.NULL_ID;
+		}
+
+		int result = ids.nextSetBit(0);
+		for (int rank = random.nextInt(noIds); rank > 0; rank--) {
+			result = ids.nextSetBit(result + 1);
+		}
+		return PhotoId.getIdFromInt(result);
+	}
+
+}
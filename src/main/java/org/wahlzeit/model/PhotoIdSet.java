@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A PhotoIdSet is a set of photo ids held as a bitmap over the int values of the ids. It is meant to be kept in the
+ * HttpSession: it serializes to a version byte followed by the ids as varint-encoded deltas, which takes about one or
+ * two bytes per id. It also tracks whether it changed since it was last written.
+ */
+public class PhotoIdSet implements Externalizable, Iterable<PhotoId> {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Version of the serialized form; readExternal rejects any other
+	 */
+	protected static final int FORMAT_VERSION = 1;
+
+	/**
+	 *
+	 */
+	protected BitSet ids = new BitSet();
+
+	/**
+	 *
+	 */
+	protected transient boolean isDirty = false;
+
+	/**
+	 * Public no-arg constructor required by Externalizable
+	 */
+	public PhotoIdSet() {
+		// do nothing
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean contains(PhotoId id) {
+		return ids.get(id.asInt());
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public boolean add(PhotoId id) {
+		int value = id.asInt();
+		if (ids.get(value)) {
+			return false;
+		}
+
+		ids.set(value);
+		isDirty = true;
+		return true;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public boolean remove(PhotoId id) {
+		int value = id.asInt();
+		if (!ids.get(value)) {
+			return false;
+		}
+
+		ids.clear(value);
+		isDirty = true;
+		return true;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void addAll(PhotoIdSet other) {
+		if (other != null && !other.isEmpty()) {
+			ids.or(other.ids);
+			isDirty = true;
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void removeAll(PhotoIdSet other) {
+		if (other != null && ids.intersects(other.ids)) {
+			ids.andNot(other.ids);
+			isDirty = true;
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void retainAll(PhotoIdSet other) {
+		if (other == null) {
+			clear();
+		} else {
+			int oldSize = ids.cardinality();
+			ids.and(other.ids);
+			isDirty |= ids.cardinality() != oldSize;
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void clear() {
+		if (!ids.isEmpty()) {
+			ids.clear();
+			isDirty = true;
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int size() {
+		return ids.cardinality();
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean isEmpty() {
+		return ids.isEmpty();
+	}
+
+	/**
+	 * Iterates over the ids in ascending order
+	 */
+	public Iterator<PhotoId> iterator() {
+		return new Iterator<PhotoId>() {
+			int next = ids.nextSetBit(0);
+
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			public PhotoId next() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				PhotoId result = PhotoId.getIdFromInt(next);
+				next = ids.nextSetBit(next + 1);
+				return result;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns a uniformly chosen id of this set, or the null id if it is empty.
+	 */
+	public PhotoId getRandomId(Random random) {
+		return PhotoIdIndex.select(ids, random);
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Removes the ids of this set from the given bitmap.
+	 */
+	public void removeAllFrom(BitSet other) {
+		other.andNot(ids);
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean isDirty() {
+		return isDirty;
+	}
+
+	/**
+	 * @methodtype set
+	 */
+	public void resetDirty() {
+		isDirty = false;
+	}
+
+	/**
+	 *
+	 */
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeByte(FORMAT_VERSION);
+		writeIds(out, ids);
+	}
+
+	/**
+	 *
+	 */
+	public void readExternal(ObjectInput in) throws IOException {
+		assertIsKnownVersion(in.readByte(), FORMAT_VERSION, PhotoIdSet.class);
+		ids = readIds(in);
+		isDirty = false;
+	}
+
+	/**
+	 * @methodtype assertion
+	 */
+	protected static void assertIsKnownVersion(int version, int knownVersion, Class<?> type) throws IOException {
+		if (version != knownVersion) {
+			throw new InvalidClassException(type.getName(), "unknown format version " + version);
+		}
+	}
+
+	/**
+	 * Writes the number of ids, then each id as its distance to the previous one.
+	 */
+	public static void writeIds(DataOutput out, BitSet ids) throws IOException {
+		writeVarInt(out, ids.cardinality());
+		int previous = 0;
+		for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+			writeVarInt(out, i - previous);
+			previous = i;
+		}
+	}
+
+	/**
+	 *
+	 */
+	public static BitSet readIds(DataInput in) throws IOException {
+		BitSet result = new BitSet();
+		int noIds = readVarInt(in);
+		int previous = 0;
+		for (int i = 0; i < noIds; i++) {
+			previous += readVarInt(in);
+			result.set(previous);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes a non-negative int in 7-bit groups, least significant first; the high bit marks that more follow.
+	 */
+	public static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 *
+	 */
+	public static int readVarInt(DataInput in) throws IOException {
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readByte();
+			result |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("malformed varint");
+	}
+
+}
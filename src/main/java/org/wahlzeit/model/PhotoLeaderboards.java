@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PhotoLeaderboards keeps the cached photos ranked by praise: all visible photos, the visible photos with each tag,
+ * and all photos of each owner, whatever their status. A photo is re-ranked in O(log n) per ranking it is in whenever
+ * its praise, status, owner, or tags change, so top lists and ranks never need a sort.
+ */
+public class PhotoLeaderboards {
+
+	/**
+	 * Ranking of all visible photos
+	 */
+	protected final PhotoRanking ranking = new PhotoRanking();
+
+	/**
+	 * Ranking per owner id
+	 */
+	protected final Map<String, PhotoRanking> ownerRankings = new HashMap<String, PhotoRanking>();
+
+	/**
+	 * Ranking per tag
+	 */
+	protected final Map<String, PhotoRanking> tagRankings = new HashMap<String, PhotoRanking>();
+
+	/**
+	 * Owner id each ranked photo is listed under
+	 */
+	protected final Map<PhotoId, String> photoOwners = new HashMap<PhotoId, String>();
+
+	/**
+	 * Tags each ranked photo is listed under
+	 */
+	protected final Map<PhotoId, Set<String>> photoTags = new HashMap<PhotoId, Set<String>>();
+
+	/**
+	 * @methodtype command
+	 *
+	 * (Re-)ranks the photo by its current praise, owner, status, and tags.
+	 */
+	public synchronized void update(Photo photo) {
+		PhotoId id = photo.getId();
+		double praise = photo.getPraise();
+
+		String oldOwnerId = photoOwners.get(id);
+		String newOwnerId = photo.getOwnerId();
+		if (oldOwnerId != null && !oldOwnerId.equals(newOwnerId)) {
+			removeFrom(ownerRankings, oldOwnerId, id);
+			photoOwners.remove(id);
+		}
+		if (newOwnerId != null) {
+			getOrCreate(ownerRankings, newOwnerId).update(id, praise);
+			photoOwners.put(id, newOwnerId);
+		}
+
+		Set<String> newTags = new HashSet<String>();
+		if (photo.isVisible()) {
+			ranking.update(id, praise);
+			Tags tags = photo.getTags();
+			for (int i = 0; i < tags.getSize(); i++) {
+				newTags.add(tags.getTag(i));
+			}
+		} else {
+			ranking.remove(id);
+		}
+
+		Set<String> oldTags = photoTags.get(id);
+		if (oldTags != null) {
+			for (String tag : oldTags) {
+				if (!newTags.contains(tag)) {
+					removeFrom(tagRankings, tag, id);
+				}
+			}
+		}
+		for (String tag : newTags) {
+			getOrCreate(tagRankings, tag).update(id, praise);
+		}
+
+		if (newTags.isEmpty()) {
+			photoTags.remove(id);
+		} else {
+			photoTags.put(id, newTags);
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized void remove(PhotoId id) {
+		ranking.remove(id);
+
+		String ownerId = photoOwners.remove(id);
+		if (ownerId != null) {
+			removeFrom(ownerRankings, ownerId, id);
+		}
+
+		Set<String> tags = photoTags.remove(id);
+		if (tags != null) {
+			for (String tag : tags) {
+				removeFrom(tagRankings, tag, id);
+			}
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the best k visible photos, best first.
+	 */
+	public synchronized List<PhotoId> getTopPhotoIds(int k) {
+		return ranking.getTopPhotoIds(k);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the visible photos ranked from the 0-based rank on, at most k of them, best first.
+	 */
+	public synchronized List<PhotoId> getPhotoIds(int from, int k) {
+		return ranking.getPhotoIds(from, k);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the best k photos of the owner, whatever their status, best first.
+	 */
+	public synchronized List<PhotoId> getTopPhotoIdsOfOwner(String ownerId, int k) {
+		PhotoRanking ownerRanking = ownerRankings.get(ownerId);
+		return (ownerRanking == null) ? Collections.<PhotoId>emptyList() : ownerRanking.getTopPhotoIds(k);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the best k visible photos with the tag, best first.
+	 */
+	public synchronized List<PhotoId> getTopPhotoIdsWithTag(String tag, int k) {
+		PhotoRanking tagRanking = tagRankings.get(Tags.asTag(tag));
+		return (tagRanking == null) ? Collections.<PhotoId>emptyList() : tagRanking.getTopPhotoIds(k);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the 0-based rank of the photo among all visible photos, or -1 if it is not visible.
+	 */
+	public synchronized int getRank(PhotoId id) {
+		return ranking.getRank(id);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the 0-based rank of the photo among the visible photos with the tag, or -1 if it is not among them.
+	 */
+	public synchronized int getRankWithTag(String tag, PhotoId id) {
+		PhotoRanking tagRanking = tagRankings.get(Tags.asTag(tag));
+		return (tagRanking == null) ? -1 : tagRanking.getRank(id);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int getNoPhotos() {
+		return ranking.size();
+	}
+
+	/**
+	 * @methodtype get
+	 * @methodproperties class
+	 */
+	protected static PhotoRanking getOrCreate(Map<String, PhotoRanking> rankings, String key) {
+		PhotoRanking result = rankings.get(key);
+		if (result == null) {
+			result = new PhotoRanking();
+			rankings.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype command
+	 * @methodproperties class
+	 */
+	protected static void removeFrom(Map<String, PhotoRanking> rankings, String key, PhotoId id) {
+		PhotoRanking ranking = rankings.get(key);
+		if (ranking != null) {
+			ranking.remove(id);
+			if (ranking.isEmpty()) {
+				rankings.remove(key);
+			}
+		}
+	}
+
+}
@@ -34,7 +34,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -57,16 +56,57 @@ public class PhotoManager extends ObjectManager {
 	 */
 	protected Map<PhotoId, Photo> photoCache = new HashMap<PhotoId, Photo>();
 
+	/**
+	 * Ids of the visible photos in the cache, to pick random photos from
+	 */
+	protected PhotoIdIndex visiblePhotoIds = new PhotoIdIndex();
+
 	/**
 	 *
 	 */
 	protected PhotoTagCollector photoTagCollector = null;
 
+	/**
+	 * Filter conditions of the cached photos, to filter photos without querying the datastore
+	 */
+	protected PhotoTagIndex photoTagIndex = null;
+
+	/**
+	 * Usage counts of the tags of the cached photos, to complete tags as they are typed
+	 */
+	protected TagTrie tagTrie = new TagTrie();
+
+	/**
+	 * Full-text index of the cached photos, to search tags, owners and summaries
+	 */
+	protected PhotoSearchIndex photoSearchIndex = new PhotoSearchIndex();
+
+	/**
+	 * Owners and statuses of the cached photos, to look up photos without querying the datastore
+	 */
+	protected PhotoAttributeIndex photoAttributeIndex = new PhotoAttributeIndex();
+
+	/**
+	 * Rankings of the cached photos by praise, globally, per owner and per tag
+	 */
+	protected PhotoLeaderboards photoLeaderboards = new PhotoLeaderboards();
+
+	/**
+	 * Recent praise of the photos, to find the photos that are trending now
+	 */
+	protected TrendingPhotos trendingPhotos = new TrendingPhotos();
+
+	/**
+	 * Weights of the cached photos, to pick the next photo to show
+	 */
+	protected PhotoRecommender photoRecommender = new PhotoRecommender();
+
 	/**
 	 *
 	 */
 	public PhotoManager() {
 		photoTagCollector = PhotoFactory.getInstance().createPhotoTagCollector();
+		photoTagIndex = new PhotoTagIndex(photoTagCollector);
 	}
 
 	/**
@@ -131,6 +171,87 @@ public class PhotoManager extends ObjectManager {
 	 */
 	protected void doAddPhoto(Photo myPhoto) {
 		photoCache.put(myPhoto.getId(), myPhoto);
+		photoChanged(myPhoto);
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Keeps all indexes in line with a cached photo after its owner, praise, status, or tags changed; photos that
+	 * are not cached, e.g. ones being loaded or built, are not indexed.
+	 */
+	public void photoChanged(Photo photo) {
+		if (photoCache.get(photo.getId()) != photo) {
+			return;
+		}
+
+		if (photo.isVisible()) {
+			visiblePhotoIds.add(photo.getId());
+		} else {
+			visiblePhotoIds.remove(photo.getId());
+		}
+		photoAttributeIndex.update(photo);
+		photoLeaderboards.update(photo);
+		photoRecommender.update(photo, System.currentTimeMillis());
+		photoTagIndex.update(photo);
+		tagTrie.update(photo);
+		photoSearchIndex.update(photo);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoIdIndex getVisiblePhotoIds() {
+		return visiblePhotoIds;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoAttributeIndex getPhotoAttributeIndex() {
+		return photoAttributeIndex;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoLeaderboards getPhotoLeaderboards() {
+		return photoLeaderboards;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public TrendingPhotos getTrendingPhotos() {
+		return trendingPhotos;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoRecommender getPhotoRecommender() {
+		return photoRecommender;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoTagIndex getPhotoTagIndex() {
+		return photoTagIndex;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public TagTrie getTagTrie() {
+		return tagTrie;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoSearchIndex getPhotoSearchIndex() {
+		return photoSearchIndex;
 	}
 
 	/**
@@ -218,6 +339,35 @@ public class PhotoManager extends ObjectManager {
 		}
 	}
 
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the scaled image of the photo, either from the cached photo or from the ImageStorage. If the image does
+	 * not exist, null is returned.
+	 */
+	public Image getScaledImage(PhotoId id, PhotoSize photoSize) {
+		Image result = null;
+		Photo photo = getPhoto(id);
+		if (photo != null) {
+			result = photo.getImage(photoSize);
+		}
+
+		if (result == null) {
+			try {
+				Serializable rawImage = ImageStorage.getInstance().readImage(id.asString(), photoSize.asInt());
+				if (rawImage instanceof Image) {
+					result = (Image) rawImage;
+				}
+			} catch (IOException e) {
+				log.warning(LogBuilder.createSystemMessage().
+						addParameter("size", photoSize.asString()).
+						addParameter("photo ID", id.asString()).
+						addException("Problem when reading image", e).toString());
+			}
+		}
+		return result;
+	}
+
 	/**
 	 *
 	 */
@@ -237,14 +387,6 @@ public class PhotoManager extends ObjectManager {
 		}
 	}
 
-	/**
-	 * @methodtype helper
-	 */
-	public List<Tag> addTagsThatMatchCondition(List<Tag> tags, String condition) {
-		readObjects(tags, Tag.class, Tag.TEXT, condition);
-		return tags;
-	}
-
 	/**
 	 * @methodtype command
 	 *
@@ -281,20 +423,56 @@ public class PhotoManager extends ObjectManager {
 
 	/**
 	 * Removes all tags of the Photo (obj) in the datastore that have been removed by the user and adds all new tags of
-	 * the photo to the datastore.
+	 * the photo to the datastore. Only the difference to the tags saved last is written, in one batched delete and one
+	 * batched save; the saved tags are only queried if the photo does not know them yet.
 	 */
 	protected void updateTags(Photo photo) {
-		// delete all existing tags, for the case that some have been removed
-		deleteObjects(Tag.class, Tag.PHOTO_ID, photo.getId().asString());
-
-		// add all current tags to the datastore
-		Set<String> tags = new HashSet<String>();
-		photoTagCollector.collect(tags, photo);
-		for (Iterator<String> i = tags.iterator(); i.hasNext(); ) {
-			Tag tag = new Tag(i.next(), photo.getId().asString());
-			log.config(LogBuilder.createSystemMessage().addParameter("Writing Tag", tag.asString()).toString());
-			writeObject(tag);
+		Collection<Tag> oldTags;
+		if (photo.getSavedTags() != null) {
+			oldTags = photo.getSavedTags().values();
+		} else {
+			oldTags = new ArrayList<Tag>();
+			readObjects(oldTags, Tag.class, Tag.PHOTO_ID, photo.getId().asString());
+		}
+
+		Set<String> texts = new HashSet<String>();
+		photoTagCollector.collect(texts, photo);
+
+		Map<String, Tag> newTags = new HashMap<String, Tag>();
+		List<Tag> removedTags = new ArrayList<Tag>();
+		for (Tag tag : oldTags) {
+			if (texts.contains(tag.getText()) && !newTags.containsKey(tag.getText())) {
+				newTags.put(tag.getText(), tag);
+			} else {
+				removedTags.add(tag);
+			}
 		}
+
+		List<Tag> addedTags = new ArrayList<Tag>();
+		for (String text : texts) {
+			if (!newTags.containsKey(text)) {
+				Tag tag = new Tag(text, photo.getId().asString());
+				addedTags.add(tag);
+				newTags.put(text, tag);
+			}
+		}
+
+		deleteObjects(removedTags);
+		writeObjects(addedTags);
+		photo.setSavedTags(newTags);
+
+		log.config(LogBuilder.createSystemMessage().
+				addParameter("Tags of photo", photo.getIdAsString()).
+				addParameter("added", addedTags.size()).
+				addParameter("removed", removedTags.size()).toString());
+	}
+
+	/**
+	 * Persists photos whose praise has changed in a single batched write. Praise does not affect images, tags, or the
+	 * owner, so these are left alone.
+	 */
+	public void savePraisedPhotos(Collection<Photo> photos) {
+		writeObjects(photos);
 	}
 
 	/**
@@ -312,16 +490,18 @@ public class PhotoManager extends ObjectManager {
 	}
 
 	/**
+	 * @methodtype get
 	 *
+	 * Looks up the photos of the owner in the owner index; all photos are cached once loaded.
 	 */
 	public Set<Photo> findPhotosByOwner(String ownerName) {
 		Set<Photo> result = new HashSet<Photo>();
-		readObjects(result, Photo.class, Photo.OWNER_ID, ownerName);
-
-		for (Iterator<Photo> i = result.iterator(); i.hasNext(); ) {
-			doAddPhoto(i.next());
+		for (PhotoId id : photoAttributeIndex.getPhotoIdsOfOwner(ownerName)) {
+			Photo photo = doGetPhotoFromId(id);
+			if (photo != null) {
+				result.add(photo);
+			}
 		}
-
 		return result;
 	}
 
@@ -329,8 +509,25 @@ public class PhotoManager extends ObjectManager {
 	 *
 	 */
 	public Photo getVisiblePhoto(PhotoFilter filter) {
-		filter.generateDisplayablePhotoIds();
-		return getPhotoFromId(filter.getRandomDisplayablePhotoId());
+		return getVisiblePhoto(filter, null);
+	}
+
+	/**
+	 * Without filter conditions, recommends a photo weighted by its votes, age, and tags in common with the praised
+	 * photos, falling back to a uniform choice.
+	 */
+	public Photo getVisiblePhoto(PhotoFilter filter, PhotoIdSet praisedPhotoIds) {
+		PhotoId id;
+		if (!filter.hasConditions()) {
+			id = filter.getRecommendedPhotoId(photoRecommender, praisedPhotoIds);
+			if (id.isNullId()) {
+				id = filter.getRandomVisiblePhotoId(visiblePhotoIds);
+			}
+		} else {
+			filter.generateDisplayablePhotoIds();
+			id = filter.getRandomDisplayablePhotoId();
+		}
+		return id.isNullId() ? null : getPhotoFromId(id);
 	}
 
 	/**
@@ -339,6 +536,7 @@ public class PhotoManager extends ObjectManager {
 	public Photo createPhoto(String filename, Image uploadedImage) throws Exception {
 		PhotoId id = PhotoId.getNextId();
 		Photo result = PhotoUtil.createPhoto(filename, id, uploadedImage);
+		result.setSavedTags(new HashMap<String, Tag>());
 		addPhoto(result);
 		return result;
 	}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A PhotoRanking orders photo ids by praise, best first, with equal praise in id order. It is an order-statistic
+ * treap: each node knows the size of its subtree, so adding, removing and re-ranking a photo as well as looking up
+ * a photo's rank or the photo at a rank take O(log n) expected time, and a page of k photos takes O(log n + k).
+ *
+ * PhotoRanking is not synchronized; PhotoLeaderboards guards its rankings.
+ */
+public class PhotoRanking {
+
+	/**
+	 *
+	 */
+	protected Node root = null;
+
+	/**
+	 * Node of each ranked photo, to find it again after its praise changed
+	 */
+	protected final Map<PhotoId, Node> nodes = new HashMap<PhotoId, Node>();
+
+	/**
+	 *
+	 */
+	protected final Random random = new Random();
+
+	/**
+	 * @methodtype command
+	 *
+	 * Adds the photo with the given praise or moves it to the rank of its new praise.
+	 */
+	public void update(PhotoId id, double praise) {
+		Node node = nodes.get(id);
+		if (node != null) {
+			if (node.praise == praise) {
+				return;
+			}
+			root = delete(root, node);
+		}
+
+		node = new Node(id.asInt(), praise, random.nextInt());
+		nodes.put(id, node);
+		root = insert(root, node);
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void remove(PhotoId id) {
+		Node node = nodes.remove(id);
+		if (node != null) {
+			root = delete(root, node);
+		}
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean contains(PhotoId id) {
+		return nodes.containsKey(id);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean isEmpty() {
+		return nodes.isEmpty();
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the 0-based rank of the photo, or -1 if it is not ranked.
+	 */
+	public int getRank(PhotoId id) {
+		Node node = nodes.get(id);
+		if (node == null) {
+			return -1;
+		}
+
+		int result = getSize(node.left);
+		for (Node current = root; current != node; ) {
+			if (node.isBefore(current)) {
+				current = current.left;
+			} else {
+				result += getSize(current.left) + 1;
+				current = current.right;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the photo at the 0-based rank, or null if there is none.
+	 */
+	public PhotoId getPhotoId(int rank) {
+		if (rank < 0 || rank >= size()) {
+			return null;
+		}
+
+		Node current = root;
+		while (true) {
+			int leftSize = getSize(current.left);
+			if (rank < leftSize) {
+				current = current.left;
+			} else if (rank == leftSize) {
+				return PhotoId.getIdFromInt(current.id);
+			} else {
+				rank -= leftSize + 1;
+				current = current.right;
+			}
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the photos ranked from the 0-based rank on, at most k of them, best first.
+	 */
+	public List<PhotoId> getPhotoIds(int from, int k) {
+		from = Math.max(from, 0);
+		int to = from + Math.max(0, Math.min(k, size() - from));
+		List<PhotoId> result = new ArrayList<PhotoId>(to - from);
+		collect(root, 0, from, to, result);
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public List<PhotoId> getTopPhotoIds(int k) {
+		return getPhotoIds(0, k);
+	}
+
+	/**
+	 * Adds the ids of the nodes ranked in [from, to) to result; offset is the rank of the first node of the subtree.
+	 */
+	protected void collect(Node node, int offset, int from, int to, List<PhotoId> result) {
+		if (node == null || offset >= to || offset + node.size <= from) {
+			return;
+		}
+
+		collect(node.left, offset, from, to, result);
+		int rank = offset + getSize(node.left);
+		if (rank >= from && rank < to) {
+			result.add(PhotoId.getIdFromInt(node.id));
+		}
+		collect(node.right, rank + 1, from, to, result);
+	}
+
+	/**
+	 * Inserts newNode into the subtree and returns its new root.
+	 */
+	protected Node insert(Node node, Node newNode) {
+		if (node == null) {
+			return newNode;
+		}
+
+		if (newNode.priority > node.priority) {
+			Node[] parts = split(node, newNode);
+			newNode.left = parts[0];
+			newNode.right = parts[1];
+			return newNode.update();
+		}
+
+		if (newNode.isBefore(node)) {
+			node.left = insert(node.left, newNode);
+		} else {
+			node.right = insert(node.right, newNode);
+		}
+		return node.update();
+	}
+
+	/**
+	 * Splits the subtree into the nodes ranked before and after key.
+	 */
+	protected Node[] split(Node node, Node key) {
+		if (node == null) {
+			return new Node[2];
+		}
+
+		Node[] result;
+		if (node.isBefore(key)) {
+			result = split(node.right, key);
+			node.right = result[0];
+			result[0] = node.update();
+		} else {
+			result = split(node.left, key);
+			node.left = result[1];
+			result[1] = node.update();
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes the node from the subtree and returns its new root.
+	 */
+	protected Node delete(Node node, Node key) {
+		if (node == key) {
+			return merge(node.left, node.right);
+		}
+
+		if (key.isBefore(node)) {
+			node.left = delete(node.left, key);
+		} else {
+			node.right = delete(node.right, key);
+		}
+		return node.update();
+	}
+
+	/**
+	 * Merges two subtrees, all nodes of the first ranked before those of the second.
+	 */
+	protected Node merge(Node first, Node second) {
+		if (first == null) {
+			return second;
+		} else if (second == null) {
+			return first;
+		} else if (first.priority > second.priority) {
+			first.right = merge(first.right, second);
+			return first.update();
+		} else {
+			second.left = merge(first, second.left);
+			return second.update();
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 * @methodproperties class
+	 */
+	protected static int getSize(Node node) {
+		return (node == null) ? 0 : node.size;
+	}
+
+	/**
+	 * A photo with the praise it is ranked by
+	 */
+	protected static class Node {
+
+		protected final int id;
+		protected final double praise;
+		protected final int priority;
+		protected int size = 1;
+		protected Node left;
+		protected Node right;
+
+		protected Node(int myId, double myPraise, int myPriority) {
+			id = myId;
+			praise = myPraise;
+			priority = myPriority;
+		}
+
+		protected boolean isBefore(Node other) {
+			return (praise > other.praise) || (praise == other.praise && id < other.id);
+		}
+
+		protected Node update() {
+			size = getSize(left) + 1 + getSize(right);
+			return this;
+		}
+	}
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A PhotoRecommender picks the next photo to show, favoring photos that need votes. Each visible photo is weighted by
+ * how few votes it has and by whether it is fresh, and drawn from a PhotoSampler in O(log n). A drawn photo is then
+ * accepted with a probability that grows with the share of its tags found on the photos the client praised, so
+ * photos similar to the ones a client liked come up more often. Weights are updated as votes arrive; fresh photos
+ * lose their boost lazily, the next time the recommender is used after their fresh period.
+ */
+public class PhotoRecommender {
+
+	/**
+	 * Extra weight of a photo without votes beyond the initial one; it shrinks with the number of votes
+	 */
+	public static final double UNDER_VOTED_BOOST = 4.0;
+
+	/**
+	 * Factor on the weight of a photo created within the fresh period
+	 */
+	public static final double FRESH_BOOST = 2.0;
+	public static final long FRESH_PERIOD = 24 * PraiseCounters.HOUR;
+
+	/**
+	 * Factor on the acceptance odds of a photo whose tags are all among the client's praised tags
+	 */
+	public static final double AFFINITY_BOOST = 3.0;
+
+	/**
+	 * Number of draws before giving up, e.g. because most weight is on photos the client has seen
+	 */
+	public static final int MAX_NO_DRAWS = 32;
+
+	/**
+	 * Number of praised photos whose tags are considered for affinity
+	 */
+	public static final int MAX_NO_AFFINITY_PHOTOS = 100;
+
+	/**
+	 *
+	 */
+	protected final PhotoSampler sampler = new PhotoSampler();
+
+	/**
+	 * Tags of each weighted photo, by id
+	 */
+	protected Tags[] photoTags = new Tags[64];
+
+	/**
+	 * Weighted photos still within their fresh period, the oldest first
+	 */
+	protected final PriorityQueue<Photo> freshPhotos = new PriorityQueue<Photo>(11, new Comparator<Photo>() {
+		public int compare(Photo a, Photo b) {
+			return Long.compare(a.getCreationTime(), b.getCreationTime());
+		}
+	});
+
+	/**
+	 *
+	 */
+	protected final Set<PhotoId> freshPhotoIds = new HashSet<PhotoId>();
+
+	/**
+	 * @methodtype command
+	 *
+	 * (Re-)weights the photo by its current votes, status, and age.
+	 */
+	public synchronized void update(Photo photo, long now) {
+		expireFreshPhotos(now);
+
+		int id = photo.getId().asInt();
+		double weight = getWeight(photo, now);
+		sampler.setWeight(id, weight);
+		if (weight > 0) {
+			if (id >= photoTags.length) {
+				photoTags = Arrays.copyOf(photoTags, Math.max(id + 1, 2 * photoTags.length));
+			}
+			photoTags[id] = photo.getTags();
+			if (isFresh(photo, now) && freshPhotoIds.add(photo.getId())) {
+				freshPhotos.add(photo);
+			}
+		} else if (id < photoTags.length) {
+			photoTags[id] = null;
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Draws a photo that is not excluded, favoring those sharing tags with the praised photos; returns the null id if
+	 * no draw succeeds, so the caller can fall back to uniform sampling.
+	 */
+	public synchronized PhotoId getRecommendedId(Random random, long now, PhotoIdSet praisedPhotoIds,
+			PhotoIdSet... excluded) {
+		expireFreshPhotos(now);
+		Set<String> affinityTags = getAffinityTags(praisedPhotoIds);
+
+		for (int i = 0; i < MAX_NO_DRAWS; i++) {
+			int id = sampler.sample(random);
+			if (id < 0) {
+				continue;
+			}
+
+			PhotoId candidate = PhotoId.getIdFromInt(id);
+			if (!isExcluded(candidate, excluded) && isAccepted(photoTags[id], affinityTags, random)) {
+				return candidate;
+			}
+		}
+		return PhotoId.NULL_ID;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized double getWeight(PhotoId id) {
+		return sampler.getWeight(id.asInt());
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int size() {
+		return sampler.size();
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected double getWeight(Photo photo, long now) {
+		if (!photo.isVisible()) {
+			return 0;
+		}
+
+		double result = 1 + UNDER_VOTED_BOOST / Math.max(photo.getNoVotes(), 1);
+		return isFresh(photo, now) ? FRESH_BOOST * result : result;
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	protected boolean isFresh(Photo photo, long now) {
+		return now - photo.getCreationTime() < FRESH_PERIOD;
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Re-weights the photos whose fresh period is over.
+	 */
+	protected void expireFreshPhotos(long now) {
+		while (!freshPhotos.isEmpty() && !isFresh(freshPhotos.peek(), now)) {
+			Photo photo = freshPhotos.poll();
+			freshPhotoIds.remove(photo.getId());
+			if (sampler.getWeight(photo.getId().asInt()) > 0) {
+				sampler.setWeight(photo.getId().asInt(), getWeight(photo, now));
+			}
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Collects the tags of some of the praised photos.
+	 */
+	protected Set<String> getAffinityTags(PhotoIdSet praisedPhotoIds) {
+		Set<String> result = new HashSet<String>();
+		if (praisedPhotoIds == null) {
+			return result;
+		}
+
+		int noPhotos = 0;
+		for (PhotoId id : praisedPhotoIds) {
+			Tags tags = (id.asInt() < photoTags.length) ? photoTags[id.asInt()] : null;
+			if (tags != null) {
+				for (int i = 0; i < tags.getSize(); i++) {
+					result.add(tags.getTag(i));
+				}
+			}
+			if (++noPhotos == MAX_NO_AFFINITY_PHOTOS) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 *
+	 * Accepts a drawn photo with odds from 1 / (1 + AFFINITY_BOOST), for no tags in common, up to 1.
+	 */
+	protected boolean isAccepted(Tags tags, Set<String> affinityTags, Random random) {
+		if (affinityTags.isEmpty()) {
+			return true;
+		}
+
+		int noCommonTags = 0;
+		int noTags = (tags == null) ? 0 : tags.getSize();
+		for (int i = 0; i < noTags; i++) {
+			if (affinityTags.contains(tags.getTag(i))) {
+				noCommonTags++;
+			}
+		}
+
+		double affinity = (noTags == 0) ? 0 : (double) noCommonTags / noTags;
+		return random.nextDouble() * (1 + AFFINITY_BOOST) < 1 + AFFINITY_BOOST * affinity;
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 * @methodproperties class
+	 */
+	protected static boolean isExcluded(PhotoId id, PhotoIdSet... excluded) {
+		for (PhotoIdSet photoIds : excluded) {
+			if (photoIds.contains(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
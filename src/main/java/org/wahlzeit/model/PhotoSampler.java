@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A PhotoSampler draws photo ids at random with probability proportional to their weights. The weights are kept in
+ * a Fenwick tree over the photo ids, so changing a weight and drawing an id both take O(log n).
+ *
+ * PhotoSampler is not synchronized; PhotoRecommender guards its sampler.
+ */
+public class PhotoSampler {
+
+	/**
+	 * Weight of each photo, by id
+	 */
+	protected double[] weights = new double[64];
+
+	/**
+	 * Fenwick tree over weights; tree[i] sums the weights of ids i - (i & -i) up to i - 1
+	 */
+	protected double[] tree = new double[weights.length + 1];
+
+	/**
+	 * Number of photos with a weight above zero
+	 */
+	protected int size = 0;
+
+	/**
+	 * @methodtype set
+	 */
+	public void setWeight(int id, double weight) {
+		if (!(weight >= 0) || Double.isInfinite(weight)) {
+			throw new IllegalArgumentException("invalid weight: " + weight);
+		}
+
+		if (id >= weights.length) {
+			if (weight == 0) {
+				return;
+			}
+			ensureCapacity(id);
+		}
+
+		double delta = weight - weights[id];
+		if (delta == 0) {
+			return;
+		}
+
+		size += ((weight > 0) ? 1 : 0) - ((weights[id] > 0) ? 1 : 0);
+		weights[id] = weight;
+		for (int i = id + 1; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public double getWeight(int id) {
+		return (id < weights.length) ? weights[id] : 0;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public double getTotalWeight() {
+		double result = 0;
+		for (int i = tree.length - 1; i > 0; i -= i & -i) {
+			result += tree[i];
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Draws an id with probability proportional to its weight; returns -1 if all weights are zero.
+	 */
+	public int sample(Random random) {
+		if (size == 0) {
+			return -1;
+		}
+
+		double target = random.nextDouble() * getTotalWeight();
+		int result = 0;
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+			int next = result + step;
+			if (next < tree.length && tree[next] <= target) {
+				result = next;
+				target -= tree[next];
+			}
+		}
+
+		// rounding may end the descent next to a photo without weight
+		return (result < weights.length && weights[result] > 0) ? result : -1;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void ensureCapacity(int id) {
+		int capacity = Math.max(id + 1, 2 * weights.length);
+		weights = Arrays.copyOf(weights, capacity);
+		tree = new double[capacity + 1];
+		for (int i = 1; i <= capacity; i++) {
+			tree[i] += weights[i - 1];
+			int parent = i + (i & -i);
+			if (parent <= capacity) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+
+}
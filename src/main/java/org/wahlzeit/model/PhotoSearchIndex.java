@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A PhotoSearchIndex is an in-memory full-text index over the visible photos, ranked with BM25. A photo's text is its
+ * tags and its owner, by nickname and by the id its summary shows; the rest of the summary is the same boilerplate
+ * for every photo and would only dilute the ranking. The text is split at whitespace and commas and each token
+ * normalized like a tag, so "Sci-Fi" finds photos tagged "scifi". Photos are re-indexed one at a time as they are
+ * saved; removing a photo takes constant time per term, as each document knows its position in every posting list.
+ */
+public class PhotoSearchIndex {
+
+	/**
+	 * BM25 term frequency saturation
+	 */
+	public static final double K1 = 1.2;
+
+	/**
+	 * BM25 document length normalization
+	 */
+	public static final double B = 0.75;
+
+	/**
+	 * Posting list per term
+	 */
+	protected final Map<String, Postings> postings = new HashMap<String, Postings>();
+
+	/**
+	 * Indexed photos by photo id; null for photos not in the index
+	 */
+	protected Document[] documents = new Document[64];
+
+	/**
+	 * Number of indexed photos
+	 */
+	protected int noDocuments = 0;
+
+	/**
+	 *
+	 */
+	protected long totalLength = 0;
+
+	/**
+	 * @methodtype command
+	 *
+	 * (Re-)indexes the photo; photos that are not visible are removed from the index. Does nothing if the indexed
+	 * text of the photo is unchanged, e.g. after a vote.
+	 */
+	public synchronized void update(Photo photo) {
+		if (!photo.isVisible()) {
+			remove(photo.getId());
+			return;
+		}
+
+		Tags tags = photo.getTags();
+		String ownerId = photo.getOwnerId();
+		String ownerName = getOwnerName(ownerId);
+		int id = photo.getId().asInt();
+		Document oldDocument = (id < documents.length) ? documents[id] : null;
+		if (oldDocument != null && oldDocument.isFor(tags, ownerId, ownerName)) {
+			return;
+		}
+
+		remove(photo.getId());
+		List<String> tokens = new ArrayList<String>();
+		collectTokens(tokens, tags, ownerId, ownerName);
+		if (tokens.isEmpty()) {
+			return;
+		}
+
+		Map<String, Integer> frequencies = new HashMap<String, Integer>();
+		for (String token : tokens) {
+			Integer frequency = frequencies.get(token);
+			frequencies.put(token, (frequency == null) ? 1 : frequency + 1);
+		}
+
+		Document document = new Document(frequencies.size(), tokens.size(), tags, ownerId, ownerName);
+		int termIndex = 0;
+		for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+			Postings termPostings = postings.get(entry.getKey());
+			if (termPostings == null) {
+				termPostings = new Postings();
+				postings.put(entry.getKey(), termPostings);
+			}
+			document.terms[termIndex] = entry.getKey();
+			document.positions[termIndex] = termPostings.add(id, entry.getValue(), termIndex);
+			termIndex++;
+		}
+
+		if (id >= documents.length) {
+			documents = Arrays.copyOf(documents, Math.max(id + 1, 2 * documents.length));
+		}
+		documents[id] = document;
+		noDocuments++;
+		totalLength += document.length;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized void remove(PhotoId photoId) {
+		int id = photoId.asInt();
+		Document document = (id < documents.length) ? documents[id] : null;
+		if (document == null) {
+			return;
+		}
+
+		for (int i = 0; i < document.terms.length; i++) {
+			Postings termPostings = postings.get(document.terms[i]);
+			int moved = termPostings.remove(document.positions[i]);
+			if (moved != -1) {
+				// the last posting took the place of the removed one
+				documents[termPostings.ids[moved]].positions[termPostings.termIndexes[moved]] = moved;
+			}
+			if (termPostings.size == 0) {
+				postings.remove(document.terms[i]);
+			}
+		}
+
+		documents[id] = null;
+		noDocuments--;
+		totalLength -= document.length;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int size() {
+		return noDocuments;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the ids of at most k photos matching any term of the query, best match first; equal scores are in id
+	 * order.
+	 */
+	public synchronized List<PhotoId> search(String query, int k) {
+		List<String> terms = new ArrayList<String>();
+		tokenize(terms, query);
+		if (terms.isEmpty() || noDocuments == 0 || k <= 0) {
+			return Collections.emptyList();
+		}
+
+		int noPhotos = noDocuments;
+		double averageLength = (double) totalLength / noPhotos;
+		Map<Integer, Double> scores = new HashMap<Integer, Double>();
+		for (String term : new LinkedHashSet<String>(terms)) {
+			Postings termPostings = postings.get(term);
+			if (termPostings == null) {
+				continue;
+			}
+
+			double idf = Math.log(1 + (noPhotos - termPostings.size + 0.5) / (termPostings.size + 0.5));
+			for (int i = 0; i < termPostings.size; i++) {
+				int id = termPostings.ids[i];
+				int frequency = termPostings.frequencies[i];
+				double norm = K1 * (1 - B + B * documents[id].length / averageLength);
+				double score = idf * frequency * (K1 + 1) / (frequency + norm);
+				Double oldScore = scores.get(id);
+				scores.put(id, (oldScore == null) ? score : oldScore + score);
+			}
+		}
+
+		PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<Map.Entry<Integer, Double>>(k + 1,
+				new Comparator<Map.Entry<Integer, Double>>() {
+					public int compare(Map.Entry<Integer, Double> a, Map.Entry<Integer, Double> b) {
+						return compareScores(b, a);
+					}
+				});
+		for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+			best.add(entry);
+			if (best.size() > k) {
+				best.poll();
+			}
+		}
+
+		List<Map.Entry<Integer, Double>> ranked = new ArrayList<Map.Entry<Integer, Double>>(best);
+		Collections.sort(ranked, new Comparator<Map.Entry<Integer, Double>>() {
+			public int compare(Map.Entry<Integer, Double> a, Map.Entry<Integer, Double> b) {
+				return compareScores(a, b);
+			}
+		});
+
+		List<PhotoId> result = new ArrayList<PhotoId>(ranked.size());
+		for (Map.Entry<Integer, Double> entry : ranked) {
+			result.add(PhotoId.getIdFromInt(entry.getKey()));
+		}
+		return result;
+	}
+
+	/**
+	 * Orders better matches first: higher scores, then lower ids.
+	 */
+	protected static int compareScores(Map.Entry<Integer, Double> a, Map.Entry<Integer, Double> b) {
+		int result = Double.compare(b.getValue(), a.getValue());
+		return (result != 0) ? result : a.getKey().compareTo(b.getKey());
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Collects the tokens of the tags and the owner of a photo.
+	 */
+	protected void collectTokens(List<String> tokens, Tags tags, String ownerId, String ownerName) {
+		for (int i = 0; i < tags.getSize(); i++) {
+			tokens.add(tags.getTag(i));
+		}
+
+		if (ownerName != null && !ownerName.equals(ownerId)) {
+			tokenize(tokens, ownerName);
+		}
+		tokenize(tokens, ownerId);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the nickname of the owner, or null if the owner is not known.
+	 */
+	protected String getOwnerName(String ownerId) {
+		User owner = (ownerId != null) ? UserManager.getInstance().getUserById(ownerId) : null;
+		return (owner != null) ? owner.getNickName() : null;
+	}
+
+	/**
+	 * @methodtype conversion
+	 * @methodproperties class
+	 *
+	 * Splits text at whitespace and commas and adds the non-empty pieces, normalized like tags, to tokens.
+	 */
+	public static void tokenize(List<String> tokens, String text) {
+		if (text == null) {
+			return;
+		}
+
+		int start = 0;
+		for (int i = 0; i <= text.length(); i++) {
+			if (i == text.length() || Character.isWhitespace(text.charAt(i)) || text.charAt(i) == Tags.SEPARATOR_CHAR) {
+				if (i > start) {
+					String token = Tags.asTag(text.substring(start, i));
+					if (!token.isEmpty()) {
+						tokens.add(token);
+					}
+				}
+				start = i + 1;
+			}
+		}
+	}
+
+	/**
+	 * An indexed photo: its distinct terms, the position of the photo in the posting list of each term, its number of
+	 * tokens, and the tags and owner its text was built from
+	 */
+	protected static class Document {
+
+		protected final String[] terms;
+		protected final int[] positions;
+		protected final int length;
+		protected final Tags tags;
+		protected final String ownerId;
+		protected final String ownerName;
+
+		protected Document(int noTerms, int myLength, Tags myTags, String myOwnerId, String myOwnerName) {
+			terms = new String[noTerms];
+			positions = new int[noTerms];
+			length = myLength;
+			tags = myTags;
+			ownerId = myOwnerId;
+			ownerName = myOwnerName;
+		}
+
+		protected boolean isFor(Tags otherTags, String otherOwnerId, String otherOwnerName) {
+			return tags.equals(otherTags) && isEqual(ownerId, otherOwnerId) && isEqual(ownerName, otherOwnerName);
+		}
+
+		protected static boolean isEqual(String a, String b) {
+			return (a == null) ? (b == null) : a.equals(b);
+		}
+	}
+
+	/**
+	 * The photos containing a term with the term's frequency in each, in no particular order; termIndexes holds the
+	 * index of the term in the Document of each photo
+	 */
+	protected static class Postings {
+
+		protected int[] ids = new int[4];
+		protected int[] frequencies = new int[4];
+		protected int[] termIndexes = new int[4];
+		protected int size = 0;
+
+		/**
+		 * Returns the position of the new posting.
+		 */
+		protected int add(int id, int frequency, int termIndex) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, 2 * size);
+				frequencies = Arrays.copyOf(frequencies, 2 * size);
+				termIndexes = Arrays.copyOf(termIndexes, 2 * size);
+			}
+			ids[size] = id;
+			frequencies[size] = frequency;
+			termIndexes[size] = termIndex;
+			return size++;
+		}
+
+		/**
+		 * Removes the posting at position by moving the last one into its place; returns position if a posting was
+		 * moved, -1 otherwise.
+		 */
+		protected int remove(int position) {
+			size--;
+			if (position == size) {
+				return -1;
+			}
+
+			ids[position] = ids[size];
+			frequencies[position] = frequencies[size];
+			termIndexes[position] = termIndexes[size];
+			return position;
+		}
+	}
+
+}
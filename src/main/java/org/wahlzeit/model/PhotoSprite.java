@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A photo sprite packs the thumbnails of a list of photos into one image, so that a page showing several thumbnails
+ * needs only a single image request. Thumbnails are placed into a grid of fixed-size cells in list order; the offset
+ * map of a photo therefore only depends on its position in the list and can be computed without rendering.
+ * The ordered list of photo ids, rendered as a string, serves as the key of the sprite.
+ */
+public class PhotoSprite {
+
+	/**
+	 *
+	 */
+	public static final String ID_SEPARATOR = ",";
+
+	/**
+	 *
+	 */
+	public static final int NO_COLUMNS = 8;
+	public static final int CELL_WIDTH = Photo.MAX_THUMB_PHOTO_WIDTH;
+	public static final int CELL_HEIGHT = Photo.MAX_THUMB_PHOTO_HEIGHT;
+
+	/**
+	 * A sprite for a single photo gains nothing over the plain thumbnail
+	 */
+	public static final int MIN_NO_PHOTOS = 2;
+
+	/**
+	 *
+	 */
+	public static final int MAX_NO_PHOTOS = 64;
+
+	/**
+	 *
+	 */
+	protected final List<PhotoId> photoIds;
+	protected final Map<PhotoId, Integer> positions = new HashMap<PhotoId, Integer>();
+	protected final String key;
+
+	/**
+	 * @methodtype factory
+	 */
+	public static PhotoSprite getFromPhotos(List<Photo> photos) {
+		List<PhotoId> ids = new ArrayList<PhotoId>(photos.size());
+		for (Photo photo : photos) {
+			if (photo != null && !ids.contains(photo.getId()) && ids.size() < MAX_NO_PHOTOS) {
+				ids.add(photo.getId());
+			}
+		}
+		return new PhotoSprite(ids);
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	public static PhotoSprite getFromKey(String key) {
+		List<PhotoId> ids = new ArrayList<PhotoId>();
+		if (key != null) {
+			for (String id : key.split(ID_SEPARATOR)) {
+				PhotoId photoId = PhotoId.getIdFromString(id.trim());
+				if (!photoId.isNullId() && !ids.contains(photoId) && ids.size() < MAX_NO_PHOTOS) {
+					ids.add(photoId);
+				}
+			}
+		}
+		return new PhotoSprite(ids);
+	}
+
+	/**
+	 *
+	 */
+	protected PhotoSprite(List<PhotoId> myPhotoIds) {
+		photoIds = Collections.unmodifiableList(myPhotoIds);
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < photoIds.size(); i++) {
+			PhotoId photoId = photoIds.get(i);
+			positions.put(photoId, i);
+			if (i > 0) {
+				sb.append(ID_SEPARATOR);
+			}
+			sb.append(photoId.asString());
+		}
+		key = sb.toString();
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public List<PhotoId> getPhotoIds() {
+		return photoIds;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int getNoPhotos() {
+		return photoIds.size();
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean isWorthwhile() {
+		return getNoPhotos() >= MIN_NO_PHOTOS;
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean hasPhoto(Photo photo) {
+		return (photo != null) && positions.containsKey(photo.getId());
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int getXOffset(PhotoId photoId) {
+		return (getPosition(photoId) % NO_COLUMNS) * CELL_WIDTH;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int getYOffset(PhotoId photoId) {
+		return (getPosition(photoId) / NO_COLUMNS) * CELL_HEIGHT;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected int getPosition(PhotoId photoId) {
+		Integer position = positions.get(photoId);
+		if (position == null) {
+			throw new IllegalArgumentException("photo " + photoId.asString() + " is not part of sprite");
+		}
+		return position;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int getWidth() {
+		return Math.max(1, Math.min(getNoPhotos(), NO_COLUMNS) * CELL_WIDTH);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int getHeight() {
+		return Math.max(1, ((getNoPhotos() + NO_COLUMNS - 1) / NO_COLUMNS) * CELL_HEIGHT);
+	}
+
+}
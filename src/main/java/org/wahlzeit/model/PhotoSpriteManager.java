@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import com.google.appengine.api.images.Composite;
+import com.google.appengine.api.images.Image;
+import com.google.appengine.api.images.ImagesService;
+import com.google.appengine.api.images.ImagesServiceFactory;
+import org.wahlzeit.services.LogBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * The photo sprite manager renders photo sprites and keeps the most recently used ones in a bounded cache, keyed by
+ * the ordered list of photo ids of the sprite. Thumbnails never change for a given photo id, so cached sprites need
+ * no invalidation.
+ */
+public class PhotoSpriteManager {
+
+	private static final Logger log = Logger.getLogger(PhotoSpriteManager.class.getName());
+
+	/**
+	 *
+	 */
+	public static final int MAX_NO_CACHED_SPRITES = 128;
+
+	/**
+	 * Color to fill empty cells with
+	 */
+	public static final long BACKGROUND_COLOR = 0xFFFFFFFFL;
+
+	/**
+	 *
+	 */
+	protected static final PhotoSpriteManager instance = new PhotoSpriteManager();
+
+	/**
+	 *
+	 */
+	protected final Map<String, Image> spriteCache = new LinkedHashMap<String, Image>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+			return size() > MAX_NO_CACHED_SPRITES;
+		}
+	};
+
+	/**
+	 *
+	 */
+	public static PhotoSpriteManager getInstance() {
+		return instance;
+	}
+
+	/**
+	 *
+	 */
+	protected PhotoSpriteManager() {
+		// do nothing
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the rendered sprite image, rendering it on first use. Returns null if no thumbnail could be loaded.
+	 */
+	public Image getSpriteImage(PhotoSprite sprite) {
+		String key = sprite.getKey();
+		synchronized (spriteCache) {
+			Image result = spriteCache.get(key);
+			if (result != null) {
+				return result;
+			}
+		}
+
+		Image result = renderSprite(sprite);
+		if (result != null) {
+			synchronized (spriteCache) {
+				spriteCache.put(key, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * The images service accepts a limited number of composites per call, so larger sprites are rendered in batches,
+	 * each batch compositing onto the result of the previous one.
+	 */
+	protected Image renderSprite(PhotoSprite sprite) {
+		ImagesService imagesService = ImagesServiceFactory.getImagesService();
+		int width = sprite.getWidth();
+		int height = sprite.getHeight();
+
+		Image result = null;
+		List<Composite> composites = new ArrayList<Composite>(ImagesService.MAX_COMPOSITES_PER_REQUEST);
+		for (PhotoId photoId : sprite.getPhotoIds()) {
+			if (composites.isEmpty() && result != null) {
+				composites.add(ImagesServiceFactory.makeComposite(result, 0, 0, 1f, Composite.Anchor.TOP_LEFT));
+			}
+
+			Image thumb = PhotoManager.getInstance().getScaledImage(photoId, PhotoSize.THUMB);
+			if (thumb != null) {
+				int x = sprite.getXOffset(photoId);
+				int y = sprite.getYOffset(photoId);
+				composites.add(ImagesServiceFactory.makeComposite(thumb, x, y, 1f, Composite.Anchor.TOP_LEFT));
+			}
+
+			if (composites.size() == ImagesService.MAX_COMPOSITES_PER_REQUEST) {
+				result = imagesService.composite(composites, width, height, BACKGROUND_COLOR, ImagesService.OutputEncoding.JPEG);
+				composites.clear();
+			}
+		}
+
+		boolean hasPending = composites.size() > ((result != null) ? 1 : 0);
+		if (hasPending) {
+			result = imagesService.composite(composites, width, height, BACKGROUND_COLOR, ImagesService.OutputEncoding.JPEG);
+		}
+
+		log.config(LogBuilder.createSystemMessage().
+				addAction("Render photo sprite").
+				addParameter("photos", sprite.getNoPhotos()).toString());
+
+		return result;
+	}
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A PhotoTagIndex is an inverted index from filter conditions, as collected by a PhotoTagCollector (e.g. "un:name"
+ * and "tg:tag"), to the ids of the photos that match them. Posting lists are bitmaps over the photo ids, so
+ * combining conditions is a bitwise and/or. The index is kept in line with the photos incrementally.
+ *
+ * The tags are also kept in a sorted TagDictionary to resolve the prefixes of a TagQuery. The dictionary is immutable
+ * and rebuilt on demand only after a tag was added to or dropped from the index.
+ */
+public class PhotoTagIndex {
+
+	/**
+	 *
+	 */
+	public static final String TAG_CONDITION_PREFIX = "tg:";
+
+	/**
+	 *
+	 */
+	protected final PhotoTagCollector photoTagCollector;
+
+	/**
+	 * Posting list per condition
+	 */
+	protected final Map<String, PhotoIdSet> postings = new HashMap<String, PhotoIdSet>();
+
+	/**
+	 * Conditions each indexed photo is listed under, to update postings by difference
+	 */
+	protected final Map<PhotoId, Set<String>> photoConditions = new HashMap<PhotoId, Set<String>>();
+
+	/**
+	 * All indexed photos, the universe for negated queries
+	 */
+	protected final PhotoIdSet indexedPhotoIds = new PhotoIdSet();
+
+	/**
+	 * Dictionary of the tags in postings; null if it needs to be rebuilt
+	 */
+	protected TagDictionary tagDictionary = TagDictionary.EMPTY_DICTIONARY;
+
+	/**
+	 *
+	 */
+	public PhotoTagIndex(PhotoTagCollector myPhotoTagCollector) {
+		photoTagCollector = myPhotoTagCollector;
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * (Re-)indexes the photo under its current owner and tags.
+	 */
+	public synchronized void update(Photo photo) {
+		PhotoId id = photo.getId();
+		Set<String> newConditions = new HashSet<String>();
+		photoTagCollector.collect(newConditions, photo);
+		Set<String> oldConditions = photoConditions.get(id);
+		if (oldConditions == null) {
+			oldConditions = Collections.emptySet();
+		}
+
+		for (String condition : oldConditions) {
+			if (!newConditions.contains(condition)) {
+				removePosting(condition, id);
+			}
+		}
+		for (String condition : newConditions) {
+			if (!oldConditions.contains(condition)) {
+				addPosting(condition, id);
+			}
+		}
+
+		photoConditions.put(id, newConditions);
+		indexedPhotoIds.add(id);
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized void remove(PhotoId id) {
+		Set<String> oldConditions = photoConditions.remove(id);
+		indexedPhotoIds.remove(id);
+		if (oldConditions != null) {
+			for (String condition : oldConditions) {
+				removePosting(condition, id);
+			}
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void addPosting(String condition, PhotoId id) {
+		PhotoIdSet photoIds = postings.get(condition);
+		if (photoIds == null) {
+			photoIds = new PhotoIdSet();
+			postings.put(condition, photoIds);
+			invalidateTagDictionary(condition);
+		}
+		photoIds.add(id);
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void removePosting(String condition, PhotoId id) {
+		PhotoIdSet photoIds = postings.get(condition);
+		if (photoIds != null) {
+			photoIds.remove(id);
+			if (photoIds.isEmpty()) {
+				postings.remove(condition);
+				invalidateTagDictionary(condition);
+			}
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void invalidateTagDictionary(String condition) {
+		if (condition.startsWith(TAG_CONDITION_PREFIX)) {
+			tagDictionary = null;
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized TagDictionary getTagDictionary() {
+		if (tagDictionary == null) {
+			Set<String> tags = new TreeSet<String>();
+			for (String condition : postings.keySet()) {
+				if (condition.startsWith(TAG_CONDITION_PREFIX)) {
+					tags.add(condition.substring(TAG_CONDITION_PREFIX.length()));
+				}
+			}
+			tagDictionary = new TagDictionary(tags);
+		}
+		return tagDictionary;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the live posting list of tag, or null; for use by a TagQuery while holding the lock.
+	 */
+	protected PhotoIdSet getTagPostings(String tag) {
+		return postings.get(TAG_CONDITION_PREFIX + tag);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the live set of indexed photos; for use by a TagQuery while holding the lock.
+	 */
+	protected PhotoIdSet getIndexedPhotoIds() {
+		return indexedPhotoIds;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized Set<String> getConditions(PhotoId id) {
+		Set<String> result = photoConditions.get(id);
+		return (result != null) ? new HashSet<String>(result) : Collections.<String>emptySet();
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the ids of the photos that match all of the conditions; no conditions match no photo.
+	 */
+	public synchronized PhotoIdSet getPhotoIdsMatchingAll(Collection<String> conditions) {
+		PhotoIdSet result = new PhotoIdSet();
+		Iterator<String> i = conditions.iterator();
+		if (!i.hasNext()) {
+			return result;
+		}
+
+		result.addAll(postings.get(i.next()));
+		while (i.hasNext() && !result.isEmpty()) {
+			result.retainAll(postings.get(i.next()));
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the ids of the photos that match any of the conditions.
+	 */
+	public synchronized PhotoIdSet getPhotoIdsMatchingAny(Collection<String> conditions) {
+		PhotoIdSet result = new PhotoIdSet();
+		for (String condition : conditions) {
+			result.addAll(postings.get(condition));
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the ids of the photos that match the query; the empty query matches no photo.
+	 */
+	public synchronized PhotoIdSet getPhotoIdsMatching(TagQuery query) {
+		return query.evaluate(this);
+	}
+
+}
@@ -26,6 +26,8 @@ import com.google.appengine.api.images.ImagesServiceFactory;
 import com.google.appengine.api.images.Transform;
 import org.wahlzeit.services.LogBuilder;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.logging.Logger;
 
 /**
@@ -49,9 +51,30 @@ public class PhotoUtil {
 		int sourceHeight = uploadedImage.getHeight();
 		result.setWidthAndHeight(sourceWidth, sourceHeight);
 
+		readExifData(uploadedImage, result);
+
 		return result;
 	}
 
+	/**
+	 * @methodtype command Reads location, capture time, and orientation from the image header. A broken header never
+	 * fails the upload.
+	 */
+	public static void readExifData(Image source, Photo photo) {
+		try {
+			ExifData exifData = ExifReader.read(new ByteArrayInputStream(source.getImageData()));
+			exifData.applyTo(photo);
+		} catch (IOException ioex) {
+			log.warning(LogBuilder.createSystemMessage().
+					addParameter("photo ID", photo.getIdAsString()).
+					addException("Could not read Exif data", ioex).toString());
+		} catch (RuntimeException rex) {
+			log.warning(LogBuilder.createSystemMessage().
+					addParameter("photo ID", photo.getIdAsString()).
+					addException("Malformed Exif data", rex).toString());
+		}
+	}
+
 	/**
 	 *
 	 */
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Arrays;
+
+/**
+ * PraiseCounters count the praise each photo received recently, in a ring of minute buckets covering the last hour
+ * and a ring of hour buckets covering the last day. Buckets are int arrays indexed by photo id, so praising a photo
+ * does not allocate; a photo's buckets are cleared lazily when it is praised again after they went out of date.
+ *
+ * PraiseCounters are not synchronized; TrendingPhotos guards them.
+ */
+public class PraiseCounters {
+
+	/**
+	 *
+	 */
+	public static final long MINUTE = 60 * 1000L;
+	public static final long HOUR = 60 * MINUTE;
+
+	/**
+	 * Number of minute and hour buckets per photo
+	 */
+	public static final int NO_MINUTES = 60;
+	public static final int NO_HOURS = 24;
+
+	/**
+	 * Praise per photo and minute, the minute m of photo id at id * NO_MINUTES + m % NO_MINUTES
+	 */
+	protected int[] minuteSums = new int[64 * NO_MINUTES];
+
+	/**
+	 * Praise per photo and hour, laid out like minuteSums
+	 */
+	protected int[] hourSums = new int[64 * NO_HOURS];
+
+	/**
+	 * Minute and hour of the last praise of each photo, up to which its buckets are current
+	 */
+	protected long[] lastMinutes = new long[64];
+	protected long[] lastHours = new long[64];
+
+	/**
+	 * @methodtype command
+	 */
+	public void add(int id, int value, long now) {
+		ensureCapacity(id);
+		lastMinutes[id] = add(minuteSums, id * NO_MINUTES, NO_MINUTES, lastMinutes[id], now / MINUTE, value);
+		lastHours[id] = add(hourSums, id * NO_HOURS, NO_HOURS, lastHours[id], now / HOUR, value);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the praise of the photo within the last hour, in whole minutes.
+	 */
+	public int getHourlyPraise(int id, long now) {
+		if (id >= lastMinutes.length) {
+			return 0;
+		}
+		return sum(minuteSums, id * NO_MINUTES, NO_MINUTES, lastMinutes[id], now / MINUTE);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the praise of the photo within the last day, in whole hours.
+	 */
+	public int getDailyPraise(int id, long now) {
+		if (id >= lastHours.length) {
+			return 0;
+		}
+		return sum(hourSums, id * NO_HOURS, NO_HOURS, lastHours[id], now / HOUR);
+	}
+
+	/**
+	 * Clears the buckets of a ring that went out of date since time last, adds value to the bucket of time now, and
+	 * returns the time up to which the ring is current.
+	 */
+	protected static long add(int[] sums, int offset, int length, long last, long now, int value) {
+		for (long time = Math.max(last + 1, now - length + 1); time <= now; time++) {
+			sums[offset + (int) (time % length)] = 0;
+		}
+		sums[offset + (int) (now % length)] += value;
+		return Math.max(last, now);
+	}
+
+	/**
+	 * Sums the buckets of a ring, current up to time last, that lie within the length buckets up to time now.
+	 */
+	protected static int sum(int[] sums, int offset, int length, long last, long now) {
+		int result = 0;
+		for (long time = Math.max(now, last) - length + 1; time <= Math.min(now, last); time++) {
+			result += sums[offset + (int) (time % length)];
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void ensureCapacity(int id) {
+		if (id >= lastMinutes.length) {
+			int capacity = Math.max(id + 1, 2 * lastMinutes.length);
+			minuteSums = Arrays.copyOf(minuteSums, capacity * NO_MINUTES);
+			hourSums = Arrays.copyOf(hourSums, capacity * NO_HOURS);
+			lastMinutes = Arrays.copyOf(lastMinutes, capacity);
+			lastHours = Arrays.copyOf(lastHours, capacity);
+		}
+	}
+
+}
@@ -30,6 +30,12 @@ package org.wahlzeit.model;
  * <code>phi</code> must be a finite double value in the range 0 to 2π.
  */
 public class SphericCoordinate extends AbstractCoordinate {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
+
 	public static final SphericCoordinate ORIGIN = new SphericCoordinate(0.0, 0.0, 0.0);
 	public static final SphericCoordinate ZENITH = new SphericCoordinate(1.0, 0.0, 0.0);
 	public static final SphericCoordinate AZIMUTH = new SphericCoordinate(1.0, Math.PI, 0.0);
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A TagDictionary is an immutable, sorted dictionary of tags, front coded to stay small on the heap. Tags are stored in
+ * blocks of BLOCK_SIZE; the first tag of a block is stored in full, every other tag as the length of the prefix it
+ * shares with its predecessor followed by the remaining suffix. Prefix lookups binary search the block heads and then
+ * decode one run of blocks.
+ */
+public class TagDictionary {
+
+	/**
+	 *
+	 */
+	public static final int BLOCK_SIZE = 16;
+
+	/**
+	 *
+	 */
+	public static final TagDictionary EMPTY_DICTIONARY = new TagDictionary(new ArrayList<String>());
+
+	/**
+	 * Encoded tags; each is a shared prefix length, a suffix length, and the suffix
+	 */
+	protected final char[] data;
+
+	/**
+	 * Start of each block in data
+	 */
+	protected final int[] blockOffsets;
+
+	/**
+	 *
+	 */
+	protected final int size;
+
+	/**
+	 * @param sortedTags distinct tags in ascending order
+	 */
+	public TagDictionary(Collection<String> sortedTags) {
+		StringBuilder sb = new StringBuilder();
+		blockOffsets = new int[(sortedTags.size() + BLOCK_SIZE - 1) / BLOCK_SIZE];
+
+		int i = 0;
+		String previous = null;
+		for (String tag : sortedTags) {
+			assertIsValidTag(tag, previous);
+			int shared = 0;
+			if (i % BLOCK_SIZE == 0) {
+				blockOffsets[i / BLOCK_SIZE] = sb.length();
+			} else {
+				shared = getSharedPrefixLength(previous, tag);
+			}
+			sb.append((char) shared).append((char) (tag.length() - shared)).append(tag, shared, tag.length());
+			previous = tag;
+			i++;
+		}
+
+		data = new char[sb.length()];
+		sb.getChars(0, sb.length(), data, 0);
+		size = i;
+	}
+
+	/**
+	 * @methodtype assertion
+	 */
+	protected static void assertIsValidTag(String tag, String previous) {
+		if (tag.length() > Character.MAX_VALUE) {
+			throw new IllegalArgumentException("tag too long");
+		}
+		if (previous != null && previous.compareTo(tag) >= 0) {
+			throw new IllegalArgumentException("tags not sorted or not distinct: " + previous + ", " + tag);
+		}
+	}
+
+	/**
+	 *
+	 */
+	protected static int getSharedPrefixLength(String a, String b) {
+		int max = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < max && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the number of chars used to store the tags.
+	 */
+	public int getDataLength() {
+		return data.length;
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean contains(String tag) {
+		List<String> result = getTagsWithPrefix(tag, 1);
+		return !result.isEmpty() && result.get(0).equals(tag);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public List<String> getTagsWithPrefix(String prefix) {
+		return getTagsWithPrefix(prefix, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns at most maxNoTags tags starting with prefix, in ascending order.
+	 */
+	public List<String> getTagsWithPrefix(String prefix, int maxNoTags) {
+		List<String> result = new ArrayList<String>();
+		if (size == 0 || maxNoTags <= 0) {
+			return result;
+		}
+
+		StringBuilder tag = new StringBuilder();
+		int offset = blockOffsets[findBlock(prefix)];
+		while (offset < data.length) {
+			offset = decodeNext(tag, offset);
+			int comparison = compareToPrefix(tag, prefix);
+			if (comparison == 0) {
+				result.add(tag.toString());
+				if (result.size() == maxNoTags) {
+					break;
+				}
+			} else if (comparison > 0) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the last block whose head sorts before prefix, which is where tags with that prefix start.
+	 */
+	protected int findBlock(String prefix) {
+		StringBuilder head = new StringBuilder();
+		int low = 0;
+		int high = blockOffsets.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			head.setLength(0);
+			decodeNext(head, blockOffsets[middle]);
+			if (head.toString().compareTo(prefix) < 0) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Decodes the tag at offset into tag, which holds its predecessor; returns the offset of the next tag.
+	 */
+	protected int decodeNext(StringBuilder tag, int offset) {
+		int shared = data[offset];
+		int suffixLength = data[offset + 1];
+		tag.setLength(shared);
+		tag.append(data, offset + 2, suffixLength);
+		return offset + 2 + suffixLength;
+	}
+
+	/**
+	 * Returns 0 if tag starts with prefix, and otherwise whether tag sorts before (< 0) or after (> 0) it.
+	 */
+	protected static int compareToPrefix(CharSequence tag, String prefix) {
+		int max = Math.min(tag.length(), prefix.length());
+		for (int i = 0; i < max; i++) {
+			int diff = tag.charAt(i) - prefix.charAt(i);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return (tag.length() < prefix.length()) ? -1 : 0;
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The TagInterner keeps one canonical string per distinct tag of the stored photos, so the Tags of all photos share
+ * their tag strings; see Tags.intern(). Only tags set on photos are interned, never user input like filter criteria,
+ * so its size is bounded by the distinct tags the photos ever had. Tags are not removed once a photo drops them.
+ */
+public class TagInterner {
+
+	/**
+	 *
+	 */
+	protected static final TagInterner instance = new TagInterner();
+
+	/**
+	 *
+	 */
+	protected final Map<String, String> tags = new HashMap<String, String>();
+
+	/**
+	 *
+	 */
+	public static TagInterner getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the canonical instance of tag, adding the tag if it is new.
+	 */
+	public synchronized String intern(String tag) {
+		String result = tags.get(tag);
+		if (result == null) {
+			result = tag;
+			tags.put(tag, tag);
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public synchronized boolean contains(String tag) {
+		return tags.containsKey(tag);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int size() {
+		return tags.size();
+	}
+
+}
@@ -0,0 +1,539 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A TagQuery is a boolean query over photo tags, e.g. "(flower OR tree*) AND NOT winter". Terms are tags; a trailing
+ * '*' makes a term a prefix matching every tag that starts with it. NOT binds stronger than AND, AND stronger than OR;
+ * terms separated only by whitespace or commas are combined with AND. '|' may be used for OR and '-' or '!' for NOT.
+ *
+ * A query is parsed once into a plan over the posting lists of a PhotoTagIndex. Conjunctions intersect their
+ * cheapest operand first and subtract negated operands last, so NOT only needs the set of all photos if a
+ * conjunction has no positive operand.
+ */
+public class TagQuery {
+
+	/**
+	 *
+	 */
+	public static final TagQuery EMPTY_QUERY = new TagQuery("", null);
+
+	/**
+	 *
+	 */
+	protected static final String AND = "AND";
+	protected static final String OR = "OR";
+	protected static final String NOT = "NOT";
+
+	/**
+	 * Maximum nesting of parentheses; deeper queries are rejected rather than risking the parser's stack
+	 */
+	public static final int MAX_DEPTH = 32;
+
+	/**
+	 *
+	 */
+	protected final String source;
+
+	/**
+	 * Root of the plan; null for the empty query
+	 */
+	protected final Node root;
+
+	/**
+	 *
+	 */
+	protected TagQuery(String mySource, Node myRoot) {
+		source = mySource;
+		root = myRoot;
+	}
+
+	/**
+	 * @methodtype factory
+	 *
+	 * @throws IllegalArgumentException if the query is malformed
+	 */
+	public static TagQuery parse(String query) {
+		Parser parser = new Parser(query);
+		Node root = parser.parseQuery();
+		return (root == null) ? EMPTY_QUERY : new TagQuery(query.trim(), root);
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 *
+	 * Whether s uses any query syntax, as opposed to being a plain list of tags.
+	 */
+	public static boolean isQuery(String s) {
+		Parser parser = new Parser(s);
+		for (String token = parser.nextToken(); token != null; token = parser.nextToken()) {
+			if (isOperator(token) || token.endsWith("*")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 *
+	 */
+	protected static boolean isOperator(String token) {
+		return AND.equals(token) || OR.equals(token) || NOT.equals(token) || "|".equals(token) ||
+				"-".equals(token) || "!".equals(token) || "(".equals(token) || ")".equals(token);
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	public String asString() {
+		return source;
+	}
+
+	/**
+	 * @methodtype conversion
+	 *
+	 * Returns the parsed plan, fully parenthesized, e.g. "(flower OR tree*) AND NOT winter".
+	 */
+	public String asPlanString() {
+		return (root == null) ? "" : root.toString();
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the ids of the photos in index matching the query; the empty query matches no photo. Must be called
+	 * while holding the lock of index, see PhotoTagIndex.getPhotoIdsMatching.
+	 */
+	protected PhotoIdSet evaluate(PhotoTagIndex index) {
+		return (root == null) ? new PhotoIdSet() : root.evaluate(index);
+	}
+
+	/**
+	 * A node of the query plan
+	 */
+	protected static abstract class Node {
+
+		/**
+		 * Returns a new set with the matching photo ids.
+		 */
+		protected abstract PhotoIdSet evaluate(PhotoTagIndex index);
+
+		/**
+		 * Returns an upper bound of the number of matching photos, to order the operands of a conjunction.
+		 */
+		protected abstract int estimate(PhotoTagIndex index);
+
+		/**
+		 * Removes the photo ids not matching from result.
+		 */
+		protected void retainIn(PhotoIdSet result, PhotoTagIndex index) {
+			result.retainAll(evaluate(index));
+		}
+
+		/**
+		 * Removes the matching photo ids from result.
+		 */
+		protected void removeFrom(PhotoIdSet result, PhotoTagIndex index) {
+			result.removeAll(evaluate(index));
+		}
+	}
+
+	/**
+	 * Matches the photos with a tag; uses the posting list directly where possible
+	 */
+	protected static class TermNode extends Node {
+
+		protected final String tag;
+
+		protected TermNode(String myTag) {
+			tag = myTag;
+		}
+
+		protected PhotoIdSet evaluate(PhotoTagIndex index) {
+			PhotoIdSet result = new PhotoIdSet();
+			result.addAll(index.getTagPostings(tag));
+			return result;
+		}
+
+		protected int estimate(PhotoTagIndex index) {
+			PhotoIdSet postings = index.getTagPostings(tag);
+			return (postings == null) ? 0 : postings.size();
+		}
+
+		protected void retainIn(PhotoIdSet result, PhotoTagIndex index) {
+			result.retainAll(index.getTagPostings(tag));
+		}
+
+		protected void removeFrom(PhotoIdSet result, PhotoTagIndex index) {
+			result.removeAll(index.getTagPostings(tag));
+		}
+
+		public String toString() {
+			return tag;
+		}
+	}
+
+	/**
+	 * Matches the photos with any tag starting with a prefix, as resolved against the tag dictionary
+	 */
+	protected static class PrefixNode extends Node {
+
+		protected final String prefix;
+
+		protected PrefixNode(String myPrefix) {
+			prefix = myPrefix;
+		}
+
+		protected PhotoIdSet evaluate(PhotoTagIndex index) {
+			PhotoIdSet result = new PhotoIdSet();
+			for (String tag : index.getTagDictionary().getTagsWithPrefix(prefix)) {
+				result.addAll(index.getTagPostings(tag));
+			}
+			return result;
+		}
+
+		protected int estimate(PhotoTagIndex index) {
+			int result = 0;
+			for (String tag : index.getTagDictionary().getTagsWithPrefix(prefix)) {
+				PhotoIdSet postings = index.getTagPostings(tag);
+				result += (postings == null) ? 0 : postings.size();
+			}
+			return result;
+		}
+
+		protected void removeFrom(PhotoIdSet result, PhotoTagIndex index) {
+			for (String tag : index.getTagDictionary().getTagsWithPrefix(prefix)) {
+				result.removeAll(index.getTagPostings(tag));
+			}
+		}
+
+		public String toString() {
+			return prefix + "*";
+		}
+	}
+
+	/**
+	 * Matches the photos not matching its operand; only used where no conjunction can subtract it instead
+	 */
+	protected static class NotNode extends Node {
+
+		protected final Node operand;
+
+		protected NotNode(Node myOperand) {
+			operand = myOperand;
+		}
+
+		protected PhotoIdSet evaluate(PhotoTagIndex index) {
+			PhotoIdSet result = new PhotoIdSet();
+			result.addAll(index.getIndexedPhotoIds());
+			operand.removeFrom(result, index);
+			return result;
+		}
+
+		protected int estimate(PhotoTagIndex index) {
+			return index.getIndexedPhotoIds().size();
+		}
+
+		protected void retainIn(PhotoIdSet result, PhotoTagIndex index) {
+			operand.removeFrom(result, index);
+		}
+
+		protected void removeFrom(PhotoIdSet result, PhotoTagIndex index) {
+			operand.retainIn(result, index);
+		}
+
+		public String toString() {
+			return NOT + " " + operand;
+		}
+	}
+
+	/**
+	 * Matches the photos matching all of its operands
+	 */
+	protected static class AndNode extends Node {
+
+		protected final List<Node> operands;
+
+		protected AndNode(List<Node> myOperands) {
+			operands = myOperands;
+		}
+
+		protected PhotoIdSet evaluate(final PhotoTagIndex index) {
+			List<Node> positives = new ArrayList<Node>();
+			List<Node> negatives = new ArrayList<Node>();
+			for (Node operand : operands) {
+				if (operand instanceof NotNode) {
+					negatives.add(((NotNode) operand).operand);
+				} else {
+					positives.add(operand);
+				}
+			}
+
+			PhotoIdSet result;
+			if (positives.isEmpty()) {
+				result = new PhotoIdSet();
+				result.addAll(index.getIndexedPhotoIds());
+			} else {
+				final List<Integer> estimates = new ArrayList<Integer>();
+				for (Node positive : positives) {
+					estimates.add(positive.estimate(index));
+				}
+				List<Integer> order = new ArrayList<Integer>();
+				for (int i = 0; i < positives.size(); i++) {
+					order.add(i);
+				}
+				Collections.sort(order, new Comparator<Integer>() {
+					public int compare(Integer a, Integer b) {
+						return estimates.get(a).compareTo(estimates.get(b));
+					}
+				});
+
+				result = positives.get(order.get(0)).evaluate(index);
+				for (int i = 1; i < order.size() && !result.isEmpty(); i++) {
+					positives.get(order.get(i)).retainIn(result, index);
+				}
+			}
+
+			for (int i = 0; i < negatives.size() && !result.isEmpty(); i++) {
+				negatives.get(i).removeFrom(result, index);
+			}
+			return result;
+		}
+
+		protected int estimate(PhotoTagIndex index) {
+			int result = index.getIndexedPhotoIds().size();
+			for (Node operand : operands) {
+				if (!(operand instanceof NotNode)) {
+					result = Math.min(result, operand.estimate(index));
+				}
+			}
+			return result;
+		}
+
+		protected void retainIn(PhotoIdSet result, PhotoTagIndex index) {
+			for (int i = 0; i < operands.size() && !result.isEmpty(); i++) {
+				operands.get(i).retainIn(result, index);
+			}
+		}
+
+		public String toString() {
+			return join(operands, " " + AND + " ");
+		}
+	}
+
+	/**
+	 * Matches the photos matching any of its operands
+	 */
+	protected static class OrNode extends Node {
+
+		protected final List<Node> operands;
+
+		protected OrNode(List<Node> myOperands) {
+			operands = myOperands;
+		}
+
+		protected PhotoIdSet evaluate(PhotoTagIndex index) {
+			PhotoIdSet result = operands.get(0).evaluate(index);
+			for (int i = 1; i < operands.size(); i++) {
+				result.addAll(operands.get(i).evaluate(index));
+			}
+			return result;
+		}
+
+		protected int estimate(PhotoTagIndex index) {
+			int result = 0;
+			for (Node operand : operands) {
+				result += operand.estimate(index);
+			}
+			return Math.min(result, index.getIndexedPhotoIds().size());
+		}
+
+		protected void removeFrom(PhotoIdSet result, PhotoTagIndex index) {
+			for (int i = 0; i < operands.size() && !result.isEmpty(); i++) {
+				operands.get(i).removeFrom(result, index);
+			}
+		}
+
+		public String toString() {
+			return join(operands, " " + OR + " ");
+		}
+	}
+
+	/**
+	 *
+	 */
+	protected static String join(List<Node> operands, String separator) {
+		StringBuilder result = new StringBuilder();
+		for (Node operand : operands) {
+			if (result.length() > 0) {
+				result.append(separator);
+			}
+			boolean isNested = (operand instanceof AndNode) || (operand instanceof OrNode);
+			result.append(isNested ? "(" : "").append(operand).append(isNested ? ")" : "");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * A recursive descent parser for the query syntax
+	 */
+	protected static class Parser {
+
+		protected final String input;
+		protected int position = 0;
+		protected String lookahead;
+		protected int depth = 0;
+
+		protected Parser(String myInput) {
+			input = (myInput == null) ? "" : myInput;
+		}
+
+		/**
+		 * Returns null for a query without terms.
+		 */
+		protected Node parseQuery() {
+			lookahead = nextToken();
+			if (lookahead == null) {
+				return null;
+			}
+
+			Node result = parseOr();
+			if (lookahead != null) {
+				throw new IllegalArgumentException("unexpected " + lookahead + " in tag query");
+			}
+			return result;
+		}
+
+		protected Node parseOr() {
+			List<Node> operands = new ArrayList<Node>();
+			operands.add(parseAnd());
+			while (OR.equals(lookahead) || "|".equals(lookahead)) {
+				lookahead = nextToken();
+				operands.add(parseAnd());
+			}
+			return (operands.size() == 1) ? operands.get(0) : new OrNode(operands);
+		}
+
+		protected Node parseAnd() {
+			List<Node> operands = new ArrayList<Node>();
+			operands.add(parseNot());
+			while (lookahead != null && !OR.equals(lookahead) && !"|".equals(lookahead) && !")".equals(lookahead)) {
+				if (AND.equals(lookahead)) {
+					lookahead = nextToken();
+				}
+				operands.add(parseNot());
+			}
+			return (operands.size() == 1) ? operands.get(0) : new AndNode(operands);
+		}
+
+		protected Node parseNot() {
+			boolean isNegated = false;
+			while (NOT.equals(lookahead) || "-".equals(lookahead) || "!".equals(lookahead)) {
+				lookahead = nextToken();
+				isNegated = !isNegated;
+			}
+
+			Node operand = parseTerm();
+			if (!isNegated) {
+				return operand;
+			}
+			return (operand instanceof NotNode) ? ((NotNode) operand).operand : new NotNode(operand);
+		}
+
+		protected Node parseTerm() {
+			if (lookahead == null) {
+				throw new IllegalArgumentException("tag query ends unexpectedly");
+			}
+
+			String token = lookahead;
+			lookahead = nextToken();
+			if ("(".equals(token)) {
+				if (++depth > MAX_DEPTH) {
+					throw new IllegalArgumentException("tag query nested deeper than " + MAX_DEPTH);
+				}
+				Node result = parseOr();
+				if (!")".equals(lookahead)) {
+					throw new IllegalArgumentException("missing ) in tag query");
+				}
+				lookahead = nextToken();
+				depth--;
+				return result;
+			}
+			if (isOperator(token)) {
+				throw new IllegalArgumentException("unexpected " + token + " in tag query");
+			}
+
+			boolean isPrefix = token.endsWith("*");
+			String tag = Tags.asTag(isPrefix ? token.substring(0, token.length() - 1) : token);
+			if (tag.isEmpty()) {
+				throw new IllegalArgumentException("empty term " + token + " in tag query");
+			}
+			return isPrefix ? new PrefixNode(tag) : new TermNode(tag);
+		}
+
+		/**
+		 * Returns the next token, or null at the end of the input. Whitespace and commas only separate tokens;
+		 * '-' and '!' are operators only at the start of a token, so "sci-fi" remains one term.
+		 */
+		protected String nextToken() {
+			while (position < input.length() && isSeparator(input.charAt(position))) {
+				position++;
+			}
+			if (position == input.length()) {
+				return null;
+			}
+
+			char c = input.charAt(position);
+			if (c == '(' || c == ')' || c == '|' || c == '-' || c == '!') {
+				position++;
+				return String.valueOf(c);
+			}
+
+			int start = position;
+			while (position < input.length() && !isSeparator(c = input.charAt(position)) && c != '(' && c != ')' &&
+					c != '|') {
+				position++;
+				if (c == '*') {
+					break;
+				}
+			}
+			return input.substring(start, position);
+		}
+
+		protected static boolean isSeparator(char c) {
+			return Character.isWhitespace(c) || c == Tags.SEPARATOR_CHAR;
+		}
+	}
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A TagTrie counts how many photos use each tag and completes prefixes to the most used tags. Each node keeps the
+ * count of its tag and the maximum count in its subtree, so the top k tags for a prefix are found best-first without
+ * visiting subtrees that cannot contribute. Counts are updated incrementally from the difference between the tags a
+ * photo was last counted with and its current tags.
+ */
+public class TagTrie {
+
+	/**
+	 * Tags each photo is currently counted with
+	 */
+	protected final Map<PhotoId, Tags> photoTags = new HashMap<PhotoId, Tags>();
+
+	/**
+	 *
+	 */
+	protected final Node root = new Node();
+
+	/**
+	 * @methodtype command
+	 *
+	 * Counts the tags of a visible photo; the tags of other photos are not counted.
+	 */
+	public synchronized void update(Photo photo) {
+		Tags newTags = photo.isVisible() ? photo.getTags() : Tags.EMPTY_TAGS;
+		Tags oldTags = photoTags.get(photo.getId());
+		if (oldTags == null) {
+			oldTags = Tags.EMPTY_TAGS;
+		}
+		if (newTags.isEqual(oldTags)) {
+			return;
+		}
+
+		for (int i = 0; i < oldTags.getSize(); i++) {
+			String tag = oldTags.getTag(i);
+			if (!newTags.hasTag(tag)) {
+				add(tag, -1);
+			}
+		}
+		for (int i = 0; i < newTags.getSize(); i++) {
+			String tag = newTags.getTag(i);
+			if (!oldTags.hasTag(tag)) {
+				add(tag, 1);
+			}
+		}
+
+		if (newTags.getSize() == 0) {
+			photoTags.remove(photo.getId());
+		} else {
+			photoTags.put(photo.getId(), newTags);
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void add(String tag, int delta) {
+		Node[] path = new Node[tag.length() + 1];
+		path[0] = root;
+		for (int i = 0; i < tag.length(); i++) {
+			path[i + 1] = path[i].getOrAddChild(tag.charAt(i));
+		}
+
+		Node node = path[tag.length()];
+		node.count += delta;
+		for (int i = tag.length(); i >= 0; i--) {
+			node = path[i];
+			node.updateMaxCount();
+			if (i > 0 && node.maxCount == 0) {
+				path[i - 1].removeChild(tag.charAt(i - 1));
+			}
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int getCount(String tag) {
+		Node node = find(tag);
+		return (node == null) ? 0 : node.count;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns at most k tags starting with prefix mapped to their counts, most used first; ties are in tag order.
+	 */
+	public synchronized Map<String, Integer> getTopTags(String prefix, int k) {
+		Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+		Node start = find(prefix);
+		if (start == null || start.maxCount == 0) {
+			return result;
+		}
+
+		PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+		candidates.add(new Candidate(start, prefix, false));
+		while (!candidates.isEmpty() && result.size() < k) {
+			Candidate candidate = candidates.poll();
+			Node node = candidate.node;
+			if (candidate.isTag) {
+				result.put(candidate.tag, node.count);
+				continue;
+			}
+
+			if (node.count > 0) {
+				candidates.add(new Candidate(node, candidate.tag, true));
+			}
+			for (int i = 0; i < node.noChildren; i++) {
+				candidates.add(new Candidate(node.children[i], candidate.tag + node.keys[i], false));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected Node find(String prefix) {
+		Node result = root;
+		for (int i = 0; i < prefix.length() && result != null; i++) {
+			result = result.getChild(prefix.charAt(i));
+		}
+		return result;
+	}
+
+	/**
+	 * A trie node; children are kept in arrays sorted by their key
+	 */
+	protected static class Node {
+
+		protected char[] keys = new char[0];
+		protected Node[] children = new Node[0];
+		protected int noChildren = 0;
+
+		/**
+		 * Number of photos using the tag ending at this node
+		 */
+		protected int count = 0;
+
+		/**
+		 * Maximum count in the subtree rooted at this node
+		 */
+		protected int maxCount = 0;
+
+		protected Node getChild(char key) {
+			int i = Arrays.binarySearch(keys, 0, noChildren, key);
+			return (i >= 0) ? children[i] : null;
+		}
+
+		protected Node getOrAddChild(char key) {
+			int i = Arrays.binarySearch(keys, 0, noChildren, key);
+			if (i >= 0) {
+				return children[i];
+			}
+
+			i = -i - 1;
+			if (noChildren == keys.length) {
+				keys = Arrays.copyOf(keys, Math.max(2, 2 * noChildren));
+				children = Arrays.copyOf(children, keys.length);
+			}
+			System.arraycopy(keys, i, keys, i + 1, noChildren - i);
+			System.arraycopy(children, i, children, i + 1, noChildren - i);
+			keys[i] = key;
+			children[i] = new Node();
+			noChildren++;
+			return children[i];
+		}
+
+		protected void removeChild(char key) {
+			int i = Arrays.binarySearch(keys, 0, noChildren, key);
+			if (i >= 0) {
+				noChildren--;
+				System.arraycopy(keys, i + 1, keys, i, noChildren - i);
+				System.arraycopy(children, i + 1, children, i, noChildren - i);
+				children[noChildren] = null;
+			}
+		}
+
+		protected void updateMaxCount() {
+			maxCount = count;
+			for (int i = 0; i < noChildren; i++) {
+				maxCount = Math.max(maxCount, children[i].maxCount);
+			}
+		}
+	}
+
+	/**
+	 * A tag or a subtree waiting to be visited; ordered by count, then by tag, a tag before the subtree it starts
+	 */
+	protected static class Candidate implements Comparable<Candidate> {
+
+		protected final Node node;
+		protected final String tag;
+		protected final boolean isTag;
+
+		protected Candidate(Node myNode, String myTag, boolean myIsTag) {
+			node = myNode;
+			tag = myTag;
+			isTag = myIsTag;
+		}
+
+		protected int getKey() {
+			return isTag ? node.count : node.maxCount;
+		}
+
+		public int compareTo(Candidate other) {
+			if (getKey() != other.getKey()) {
+				return (getKey() > other.getKey()) ? -1 : 1;
+			}
+			int result = tag.compareTo(other.tag);
+			if (result == 0 && isTag != other.isTag) {
+				result = isTag ? -1 : 1;
+			}
+			return result;
+		}
+	}
+
+}
@@ -22,7 +22,12 @@ package org.wahlzeit.model;
 
 import org.wahlzeit.utils.StringUtil;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -30,6 +35,11 @@ import java.util.TreeSet;
  * A Tags instance represents a set of tags; each tag ist just a string.
  * All tags are maintained lowercase and without whitespace. 
  * For example, "Captain America" turns into "captainamerica".
+ *
+ * The tags are held in a sorted String[], which keeps them in alphabetical order. The tags of stored photos are
+ * interned by the TagInterner, see intern(), so their strings are shared by all photos; tags from user input, e.g. of
+ * a filter, stay plain strings and never enter the TagInterner. Tags are persisted as strings, see
+ * TagsTranslatorFactory.
  */
 public class Tags implements Serializable {
 
@@ -43,6 +53,11 @@ public class Tags implements Serializable {
 	 */
 	public static final int MAX_NO_TAGS = 32;
 
+	/**
+	 * Declared before EMPTY_TAGS, which uses it
+	 */
+	protected static final String[] NO_TAGS = new String[0];
+
 	/**
 	 *
 	 */
@@ -54,9 +69,9 @@ public class Tags implements Serializable {
 	private final char separator;
 
 	/**
-	 *
+	 * The tags, ordered alphabetically
 	 */
-	protected Set<String> tags = new TreeSet<String>();
+	protected transient String[] tags = NO_TAGS;
 
 	/**
 	 *
@@ -70,8 +85,7 @@ public class Tags implements Serializable {
 	 *
 	 */
 	public Tags(String myTags) {
-		this.separator = SEPARATOR_CHAR;
-		this.tags = asTagSetFromString(myTags);
+		this(myTags, SEPARATOR_CHAR);
 	}
 
 	/**
@@ -79,7 +93,64 @@ public class Tags implements Serializable {
 	 */
 	public Tags(String myTags, char separator) {
 		this.separator = separator;
-		this.tags = asTagSetFromString(myTags, separator);
+		this.tags = asSortedArray(asTagSetFromString(myTags, separator));
+	}
+
+	/**
+	 *
+	 */
+	protected Tags(char separator, String[] myTags) {
+		this.separator = separator;
+		this.tags = myTags;
+	}
+
+	/**
+	 * @methodtype conversion
+	 * @methodproperties class
+	 *
+	 * @param myTags tags, which are normalized like user input
+	 */
+	public static Tags asTags(Collection<String> myTags) {
+		Set<String> tags = new TreeSet<String>();
+		for (String tag : myTags) {
+			tag = asTag(tag);
+			if (!tag.isEmpty()) {
+				tags.add(tag);
+			}
+		}
+		return new Tags(SEPARATOR_CHAR, asSortedArray(tags));
+	}
+
+	/**
+	 * @methodtype conversion
+	 * @methodproperties class
+	 */
+	protected static String[] asSortedArray(Set<String> sortedTags) {
+		return sortedTags.isEmpty() ? NO_TAGS : sortedTags.toArray(new String[sortedTags.size()]);
+	}
+
+	/**
+	 * @methodtype conversion
+	 *
+	 * Returns these tags with their strings shared through the TagInterner; for the tags of stored photos only.
+	 */
+	public Tags intern() {
+		if (tags.length == 0) {
+			return this;
+		}
+
+		TagInterner interner = TagInterner.getInstance();
+		String[] result = null;
+		for (int i = 0; i < tags.length; i++) {
+			String tag = interner.intern(tags[i]);
+			if (tag != tags[i] && result == null) {
+				result = tags.clone();
+			}
+			if (result != null) {
+				result[i] = tag;
+			}
+		}
+		return (result == null) ? this : new Tags(separator, result);
 	}
 
 	/**
@@ -87,7 +158,7 @@ public class Tags implements Serializable {
 	 */
 	@Override
 	public int hashCode() {
-		return (tags == null) ? super.hashCode() : tags.hashCode();
+		return Arrays.hashCode(tags);
 	}
 
 	/**
@@ -110,25 +181,47 @@ public class Tags implements Serializable {
 	 *
 	 */
 	public boolean isEqual(Tags other) {
-		if (tags == null) {
-			return other.tags == null;
-		}
-
-		return tags.equals(other.tags);
+		return Arrays.equals(tags, other.tags);
 	}
 
 	/**
-	 *
+	 * Binary search over the tags; allocates nothing.
 	 */
 	public boolean hasTag(String tag) {
-		return (null != tag) && tags.contains(tag);
+		if (tag == null) {
+			return false;
+		}
+
+		int low = 0;
+		int high = tags.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = tags[middle].compareTo(tag);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
 	 * @methodtype get
 	 */
 	public int getSize() {
-		return tags.size();
+		return tags.length;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the i-th tag in alphabetical order; iterating with getSize() and getTag(i) allocates nothing.
+	 */
+	public String getTag(int i) {
+		return tags[i];
 	}
 
 	/**
@@ -142,22 +235,33 @@ public class Tags implements Serializable {
 	 *
 	 */
 	public String asString(boolean lead, char sep) {
-		StringBuffer result = new StringBuffer();
-		String seps = (lead ? " " : "") + sep + " ";
-		String[] myTags = asArray();
-		for (int i = 0; i < myTags.length; i++) {
-			if (i != 0)
-				result.append(seps);
-			result.append(myTags[i]);
-		}
+		StringBuilder result = new StringBuilder(16 * tags.length);
+		appendTo(result, lead, sep);
 		return result.toString();
 	}
 
+	/**
+	 * @methodtype conversion
+	 *
+	 * Renders the tags into result without intermediate objects.
+	 */
+	public void appendTo(StringBuilder result, boolean lead, char sep) {
+		for (int i = 0; i < tags.length; i++) {
+			if (i != 0) {
+				if (lead) {
+					result.append(' ');
+				}
+				result.append(sep).append(' ');
+			}
+			result.append(getTag(i));
+		}
+	}
+
 	/**
 	 *
 	 */
 	public String[] asArray() {
-		return tags.toArray(new String[tags.size()]);
+		return tags.clone();
 	}
 
 	/**
@@ -203,8 +307,11 @@ public class Tags implements Serializable {
 	 *
 	 */
 	public static String asTag(String n) {
-		StringBuffer result = new StringBuffer(n.length());
+		if (isTag(n)) {
+			return n;
+		}
 
+		StringBuilder result = new StringBuilder(n.length());
 		for (int i = 0; i < n.length(); i++) {
 			char c = n.charAt(i);
 			if (Character.isLetter(c)) {
@@ -217,4 +324,43 @@ public class Tags implements Serializable {
 		return result.toString();
 	}
 
+	/**
+	 * @methodtype boolean-query
+	 * @methodproperties class
+	 *
+	 * Whether n is a tag already, i.e. lowercase letters and digits only.
+	 */
+	protected static boolean isTag(String n) {
+		for (int i = 0; i < n.length(); i++) {
+			char c = n.charAt(i);
+			if (!(Character.isLetter(c) && Character.toLowerCase(c) == c) && !Character.isDigit(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the tags as strings, so a deserialized instance does not depend on the TagInterner.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(tags.length);
+		for (int i = 0; i < tags.length; i++) {
+			out.writeUTF(tags[i]);
+		}
+	}
+
+	/**
+	 *
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		Set<String> sortedTags = new TreeSet<String>();
+		for (int i = in.readInt(); i > 0; i--) {
+			sortedTags.add(in.readUTF());
+		}
+		tags = asSortedArray(sortedTags);
+	}
+
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TrendingPhotos tracks which photos are praised most right now. Each praise is counted in the PraiseCounters of the
+ * photo and fed into a HeavyHitterSketch of the current hour; the sketches of the current and the previous hour hold
+ * every photo that can be heavily praised within the last hour. Reading the trending photos ranks these candidates by
+ * their praise within the last hour, then within the last day, at most once per UPDATE_INTERVAL; in between, readers
+ * get the published list of the last update in O(1) without locking.
+ *
+ * The trending photos are not checked for visibility; callers skip those they cannot show.
+ */
+public class TrendingPhotos {
+
+	/**
+	 *
+	 */
+	public static final int DEFAULT_NO_PHOTOS = 20;
+
+	/**
+	 * Minimum time between two rankings of the candidates
+	 */
+	public static final long UPDATE_INTERVAL = PraiseCounters.MINUTE;
+
+	/**
+	 * Number of counters per sketch
+	 */
+	public static final int SKETCH_CAPACITY = 1024;
+
+	/**
+	 *
+	 */
+	protected final int noPhotos;
+
+	/**
+	 *
+	 */
+	protected final PraiseCounters praiseCounters = new PraiseCounters();
+
+	/**
+	 * Heavy hitters of the current and of the previous hour
+	 */
+	protected HeavyHitterSketch currentSketch = new HeavyHitterSketch(SKETCH_CAPACITY);
+	protected HeavyHitterSketch previousSketch = new HeavyHitterSketch(SKETCH_CAPACITY);
+
+	/**
+	 * Hour the current sketch is for
+	 */
+	protected long currentHour = 0;
+
+	/**
+	 * Trending photo ids as of the last update, best first; never modified once published
+	 */
+	protected volatile List<PhotoId> trendingPhotoIds = Collections.emptyList();
+
+	/**
+	 * Time of the last update; one interval before the epoch, so the first read updates
+	 */
+	protected volatile long lastUpdate = -UPDATE_INTERVAL;
+
+	/**
+	 *
+	 */
+	public TrendingPhotos() {
+		this(DEFAULT_NO_PHOTOS);
+	}
+
+	/**
+	 *
+	 */
+	public TrendingPhotos(int myNoPhotos) {
+		noPhotos = myNoPhotos;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized void addPraise(PhotoId id, int value, long now) {
+		rotateSketches(now);
+		praiseCounters.add(id.asInt(), value, now);
+		currentSketch.add(id.asInt(), value);
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Ranks the candidates of both sketches by their recent praise and publishes the best of them.
+	 */
+	protected synchronized void update(long now) {
+		if (now - lastUpdate < UPDATE_INTERVAL) {
+			return; // another reader updated meanwhile
+		}
+
+		lastUpdate = now;
+		rotateSketches(now);
+
+		List<Candidate> candidates = new ArrayList<Candidate>();
+		for (HeavyHitterSketch sketch : new HeavyHitterSketch[] { currentSketch, previousSketch }) {
+			for (int i = 0; i < sketch.size(); i++) {
+				int id = sketch.getId(i);
+				if (sketch == previousSketch && currentSketch.getCount(id) > 0) {
+					continue; // already a candidate
+				}
+
+				int hourlyPraise = praiseCounters.getHourlyPraise(id, now);
+				if (hourlyPraise > 0) {
+					candidates.add(new Candidate(id, hourlyPraise, praiseCounters.getDailyPraise(id, now)));
+				}
+			}
+		}
+
+		Collections.sort(candidates);
+		List<PhotoId> result = new ArrayList<PhotoId>(Math.min(noPhotos, candidates.size()));
+		for (int i = 0; i < candidates.size() && result.size() < noPhotos; i++) {
+			result.add(PhotoId.getIdFromInt(candidates.get(i).id));
+		}
+		trendingPhotoIds = Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * @methodtype get
+	 * @methodproperties convenience
+	 */
+	public List<PhotoId> getTrendingPhotoIds() {
+		return getTrendingPhotoIds(System.currentTimeMillis());
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the trending photo ids, best first, updating them first if the last update is UPDATE_INTERVAL old.
+	 */
+	public List<PhotoId> getTrendingPhotoIds(long now) {
+		if (now - lastUpdate >= UPDATE_INTERVAL) {
+			update(now);
+		}
+		return trendingPhotoIds;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public synchronized int getHourlyPraise(PhotoId id, long now) {
+		return praiseCounters.getHourlyPraise(id.asInt(), now);
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Starts a new current sketch once an hour has passed, dropping sketches older than the previous hour.
+	 */
+	protected void rotateSketches(long now) {
+		long hour = now / PraiseCounters.HOUR;
+		if (hour > currentHour) {
+			HeavyHitterSketch sketch = previousSketch;
+			previousSketch = currentSketch;
+			currentSketch = sketch;
+			currentSketch.clear();
+			if (hour > currentHour + 1) {
+				previousSketch.clear();
+			}
+			currentHour = hour;
+		}
+	}
+
+	/**
+	 * A photo to rank, ordered by praise within the last hour, then within the last day, then by id
+	 */
+	protected static class Candidate implements Comparable<Candidate> {
+
+		protected final int id;
+		protected final int hourlyPraise;
+		protected final int dailyPraise;
+
+		protected Candidate(int myId, int myHourlyPraise, int myDailyPraise) {
+			id = myId;
+			hourlyPraise = myHourlyPraise;
+			dailyPraise = myDailyPraise;
+		}
+
+		public int compareTo(Candidate other) {
+			if (hourlyPraise != other.hourlyPraise) {
+				return (hourlyPraise > other.hourlyPraise) ? -1 : 1;
+			} else if (dailyPraise != other.dailyPraise) {
+				return (dailyPraise > other.dailyPraise) ? -1 : 1;
+			} else {
+				return (id < other.id) ? -1 : ((id == other.id) ? 0 : 1);
+			}
+		}
+	}
+
+}
@@ -27,10 +27,11 @@ import org.wahlzeit.services.EmailAddress;
 import org.wahlzeit.services.Language;
 import org.wahlzeit.services.LogBuilder;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -267,11 +268,20 @@ public class User extends Client {
 
 	/**
 	 * @methodtype conversion
+	 *
+	 * Reads the cached photos of this user from the owner's praise ranking, so no sort is needed.
 	 */
 	public Photo[] getPhotosReverseOrderedByPraise() {
-		Photo[] result = photos.toArray(new Photo[0]);
-		Arrays.sort(result, getPhotoByPraiseReverseComparator());
-		return result;
+		PhotoManager photoManager = PhotoManager.getInstance();
+		List<PhotoId> ids = photoManager.getPhotoLeaderboards().getTopPhotoIdsOfOwner(id, Integer.MAX_VALUE);
+		List<Photo> result = new ArrayList<Photo>(ids.size());
+		for (PhotoId photoId : ids) {
+			Photo photo = photoManager.getPhoto(photoId);
+			if (photo != null) {
+				result.add(photo);
+			}
+		}
+		return result.toArray(new Photo[result.size()]);
 	}
 
 	/**
@@ -27,9 +27,7 @@ import org.wahlzeit.utils.HtmlUtil;
 import javax.servlet.http.HttpSession;
 import java.io.Serializable;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -58,23 +56,28 @@ public class UserSession extends Session implements Serializable {
 
 	protected HttpSession httpSession;
 
+	/**
+	 * Sprite of the thumbnails on the page being built; only lives for the current request
+	 */
+	protected PhotoSprite photoSprite = null;
+
+	/**
+	 * ISO code of the language the request asks for
+	 */
+	protected String languageCode;
+
 	/**
 	 *
 	 */
 	public UserSession(String myName, String mySiteUrl, HttpSession myHttpSession, String myLanguage) {
 		httpSession = myHttpSession;
+		languageCode = myLanguage;
 		initialize(myName);
 		if (httpSession.getAttribute(INITIALIZED) == null) {
-			httpSession.setAttribute(SITE_URL, mySiteUrl);
+			setAttribute(SITE_URL, mySiteUrl);
 			httpSession.setAttribute(PHOTO_FILTER, PhotoFactory.getInstance().createPhotoFilter());
 
-			setClient(new Guest());
-			try {
-				Language language = Language.getFromIsoCode(myLanguage);
-				getClient().setLanguage(language);
-			} catch (IllegalArgumentException e) {
-				// default language of guest is english
-			}
+			setClient(createGuest());
 
 			clearDisplayedPhotos();
 			clearPraisedPhotos();
@@ -91,7 +94,6 @@ public class UserSession extends Session implements Serializable {
 		PhotoFilter photoFilter = (PhotoFilter) httpSession.getAttribute(PHOTO_FILTER);
 		if (photoFilter != null) {
 			photoFilter.clear();
-			httpSession.setAttribute(PHOTO_FILTER, photoFilter);
 		} else {
 			log.warning("No PhotoFilter found in HttpSession to clear.");
 		}
@@ -101,14 +103,17 @@ public class UserSession extends Session implements Serializable {
 	 *
 	 */
 	public void clearPraisedPhotos() {
-		httpSession.setAttribute(PRAISED_PHOTOS, new HashSet<Photo>());
+		getPraisedPhotos().clear();
 	}
 
 	/**
 	 * @methodtype init
 	 */
 	public void clearSavedArgs() {
-		httpSession.setAttribute(SAVED_ARGS, new HashMap<String, Object>());
+		Map<String, Object> savedArgs = getSavedArgs();
+		if (savedArgs == null || !savedArgs.isEmpty()) {
+			httpSession.setAttribute(SAVED_ARGS, new HashMap<String, Object>());
+		}
 	}
 
 	/**
@@ -128,7 +133,7 @@ public class UserSession extends Session implements Serializable {
 
 	@Override
 	protected void notifyNameChanged() {
-		httpSession.setAttribute(Session.NAME, super.getName());
+		setAttribute(Session.NAME, super.getName());
 	}
 
 	/**
@@ -138,17 +143,31 @@ public class UserSession extends Session implements Serializable {
 		return (String) httpSession.getAttribute(CLIENT_ID);
 	}
 
-	@Override
-	protected void notifyProcessingTimeChanged() {
-		httpSession.setAttribute(Session.PROCESSING_TIME, super.getProcessingTime());
-	}
-
 	/**
 	 * @methodtype get
 	 */
 	public Client getClient() {
 		String clientName = (String) httpSession.getAttribute(CLIENT_ID);
-		return UserManager.getInstance().getClientById(clientName);
+		Client result = UserManager.getInstance().getClientById(clientName);
+		if (result == null && clientName.startsWith(Guest.GUEST_PREFIX)) {
+			// guests are not persisted, so one from another instance or from before a restart starts over here
+			result = createGuest();
+			setClient(result);
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype factory
+	 */
+	protected Guest createGuest() {
+		Guest result = new Guest();
+		try {
+			result.setLanguage(Language.getFromIsoCode(languageCode));
+		} catch (IllegalArgumentException e) {
+			// default language of guest is english
+		}
+		return result;
 	}
 
 	/**
@@ -163,7 +182,7 @@ public class UserSession extends Session implements Serializable {
 			}
 		}
 
-		httpSession.setAttribute(CLIENT_ID, newClient.getId());
+		setAttribute(CLIENT_ID, newClient.getId());
 		UserManager.getInstance().addHttpSessionIdToClientMapping(httpSession.getId(), newClient);
 	}
 
@@ -178,13 +197,26 @@ public class UserSession extends Session implements Serializable {
 	 * @methodtype boolean query
 	 */
 	public boolean hasPraisedPhoto(Photo photo) {
-		Set praisedPhotos = (Set) httpSession.getAttribute(PRAISED_PHOTOS);
-		if (praisedPhotos != null) {
-			return praisedPhotos.contains(photo);
-		} else {
-			log.warning("Found no set of praised Photos to search for Photo.");
-			return false;
+		return getPraisedPhotos().contains(photo.getId());
+	}
+
+	/**
+	 *
+	 */
+	public void addPraisedPhoto(Photo photo) {
+		getPraisedPhotos().add(photo.getId());
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoIdSet getPraisedPhotos() {
+		Object result = httpSession.getAttribute(PRAISED_PHOTOS);
+		if (!(result instanceof PhotoIdSet)) {
+			result = new PhotoIdSet();
+			httpSession.setAttribute(PRAISED_PHOTOS, result);
 		}
+		return (PhotoIdSet) result;
 	}
 
 	/**
@@ -194,7 +226,6 @@ public class UserSession extends Session implements Serializable {
 		PhotoFilter photoFilter = (PhotoFilter) httpSession.getAttribute(PHOTO_FILTER);
 		if (photoFilter != null) {
 			photoFilter.addProcessedPhoto(photo);
-			httpSession.setAttribute(PHOTO_FILTER, photoFilter);
 		} else {
 			log.warning("No PhotoFilter found in HttpSession to add Photo.");
 		}
@@ -211,7 +242,7 @@ public class UserSession extends Session implements Serializable {
 	 * @methodtype set
 	 */
 	public void setHeading(String myHeading) {
-		httpSession.setAttribute(HEADING, myHeading);
+		setAttribute(HEADING, myHeading);
 	}
 
 	/**
@@ -225,35 +256,50 @@ public class UserSession extends Session implements Serializable {
 	 * @methodtype set
 	 */
 	public void setMessage(String myMessage) {
-		httpSession.setAttribute(MESSAGE, HtmlUtil.asP(myMessage));
+		setAttribute(MESSAGE, HtmlUtil.asP(myMessage));
 	}
 
 	/**
 	 * @methodtype set
 	 */
 	public void setTwoLineMessage(String msg1, String msg2) {
-		httpSession.setAttribute(MESSAGE, HtmlUtil.asP(msg1) + HtmlUtil.asP(msg2));
+		setAttribute(MESSAGE, HtmlUtil.asP(msg1) + HtmlUtil.asP(msg2));
 	}
 
 	/**
 	 * @methodtype set
 	 */
 	public void setThreeLineMessage(String msg1, String msg2, String msg3) {
-		httpSession.setAttribute(MESSAGE, HtmlUtil.asP(msg1) + HtmlUtil.asP(msg2) + HtmlUtil.asP(msg3));
+		setAttribute(MESSAGE, HtmlUtil.asP(msg1) + HtmlUtil.asP(msg2) + HtmlUtil.asP(msg3));
 	}
 
 	/**
 	 * @methodtype get
 	 */
 	public PhotoId getPhotoId() {
-		return (PhotoId) httpSession.getAttribute(Photo.ID);
+		Object result = httpSession.getAttribute(Photo.ID);
+		return (result instanceof Integer) ? PhotoId.getIdFromInt((Integer) result) : (PhotoId) result;
 	}
 
 	/**
 	 * @methodtype set
 	 */
 	public void setPhotoId(PhotoId newPhotoId) {
-		httpSession.setAttribute(Photo.ID, newPhotoId);
+		setAttribute(Photo.ID, (newPhotoId != null) ? newPhotoId.asInt() : null);
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public PhotoSprite getPhotoSprite() {
+		return photoSprite;
+	}
+
+	/**
+	 * @methodtype set
+	 */
+	public void setPhotoSprite(PhotoSprite newPhotoSprite) {
+		photoSprite = newPhotoSprite;
 	}
 
 	/**
@@ -345,4 +391,35 @@ public class UserSession extends Session implements Serializable {
 		return (Map<String, Object>) httpSession.getAttribute(SAVED_ARGS);
 	}
 
+	/**
+	 * @methodtype set
+	 *
+	 * Sets an attribute of immutable value; the HttpSession is only marked for writing if the value differs.
+	 */
+	protected void setAttribute(String name, Object value) {
+		Object oldValue = httpSession.getAttribute(name);
+		if ((value == null) ? (oldValue != null) : !value.equals(oldValue)) {
+			httpSession.setAttribute(name, value);
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Marks the mutable attributes that changed during the request for writing. Call at the end of the request.
+	 */
+	public void saveState() {
+		PhotoFilter photoFilter = getPhotoFilter();
+		if (photoFilter != null && photoFilter.isDirty()) {
+			httpSession.setAttribute(PHOTO_FILTER, photoFilter);
+			photoFilter.resetDirty();
+		}
+
+		PhotoIdSet praisedPhotos = getPraisedPhotos();
+		if (praisedPhotos.isDirty()) {
+			httpSession.setAttribute(PRAISED_PHOTOS, praisedPhotos);
+			praisedPhotos.resetDirty();
+		}
+	}
+
 }
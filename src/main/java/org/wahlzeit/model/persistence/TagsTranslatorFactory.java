@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model.persistence;
+
+import com.google.appengine.api.datastore.EmbeddedEntity;
+import com.googlecode.objectify.impl.Path;
+import com.googlecode.objectify.impl.translate.CreateContext;
+import com.googlecode.objectify.impl.translate.LoadContext;
+import com.googlecode.objectify.impl.translate.SaveContext;
+import com.googlecode.objectify.impl.translate.TypeKey;
+import com.googlecode.objectify.impl.translate.ValueTranslator;
+import com.googlecode.objectify.impl.translate.ValueTranslatorFactory;
+import org.wahlzeit.model.Tags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persists Tags as the list of their tag strings, as an embedded entity with a single "tags" property. This is the
+ * layout Objectify used when Tags held a Set of strings, so existing entities load unchanged. Loaded tags belong to
+ * stored photos and are interned.
+ */
+public class TagsTranslatorFactory extends ValueTranslatorFactory<Tags, EmbeddedEntity> {
+
+	/**
+	 *
+	 */
+	public static final String TAGS = "tags";
+
+	/**
+	 *
+	 */
+	public TagsTranslatorFactory() {
+		super(Tags.class);
+	}
+
+	/**
+	 *
+	 */
+	@Override
+	protected ValueTranslator<Tags, EmbeddedEntity> createValueTranslator(TypeKey<Tags> typeKey, CreateContext ctx,
+			Path path) {
+		return new ValueTranslator<Tags, EmbeddedEntity>(EmbeddedEntity.class) {
+			@Override
+			protected Tags loadValue(EmbeddedEntity value, LoadContext ctx, Path path) {
+				Object tags = value.getProperty(TAGS);
+				if (!(tags instanceof Collection)) {
+					return Tags.EMPTY_TAGS;
+				}
+
+				// skips anything but strings, in case the property was written by someone else
+				List<String> texts = new ArrayList<String>();
+				for (Object tag : (Collection<?>) tags) {
+					if (tag instanceof String) {
+						texts.add((String) tag);
+					}
+				}
+				return Tags.asTags(texts).intern();
+			}
+
+			@Override
+			protected EmbeddedEntity saveValue(Tags value, boolean index, SaveContext ctx, Path path) {
+				EmbeddedEntity result = new EmbeddedEntity();
+				result.setUnindexedProperty(TAGS, Arrays.asList(value.asArray()));
+				return result;
+			}
+		};
+	}
+
+}
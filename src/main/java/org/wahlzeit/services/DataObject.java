@@ -20,7 +20,10 @@
 
 package org.wahlzeit.services;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A simple abstract implementation of Persistent with write count and dirty bit.
@@ -38,6 +41,23 @@ public abstract class DataObject implements Persistent, Serializable {
 	 */
 	protected transient int writeCount = 0;
 
+	/**
+	 * Source of versions; versions are unique across all persistent objects of this instance
+	 */
+	private static final AtomicLong versionCounter = new AtomicLong();
+
+	/**
+	 * Changes with every write, unlike writeCount it is not reset when the object is persisted
+	 */
+	protected transient long version = nextVersion();
+
+	/**
+	 * @methodtype factory
+	 */
+	public static long nextVersion() {
+		return versionCounter.incrementAndGet();
+	}
+
 	/**
 	 *
 	 */
@@ -57,6 +77,22 @@ public abstract class DataObject implements Persistent, Serializable {
 	 */
 	public final void incWriteCount() {
 		writeCount++;
+		version = nextVersion();
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	public final long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Field initializers do not run on deserialization, so a restored object needs a fresh version
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		version = nextVersion();
 	}
 
 	/**
@@ -23,6 +23,7 @@ package org.wahlzeit.services;
 import com.google.appengine.api.datastore.Key;
 import com.google.appengine.api.datastore.KeyFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.logging.Logger;
@@ -160,6 +161,30 @@ public abstract class ObjectManager {
 		}
 	}
 
+	/**
+	 * Writes the dirty entities of the given collection to the datastore in one batch. Dependents are not updated,
+	 * so use this only when nothing but the entities themselves has changed.
+	 */
+	protected void writeObjects(Collection<? extends Persistent> objects) {
+		assertIsNonNullArgument(objects, "objects");
+
+		List<Persistent> dirtyObjects = new ArrayList<Persistent>();
+		for (Persistent object : objects) {
+			if (object.isDirty()) {
+				dirtyObjects.add(object);
+			}
+		}
+
+		if (!dirtyObjects.isEmpty()) {
+			log.info(LogBuilder.createSystemMessage().
+					addParameter("Datastore: batch write objects", dirtyObjects.size()).toString());
+			OfyService.ofy().save().entities(dirtyObjects).now();
+			for (Persistent object : dirtyObjects) {
+				object.resetWriteCount();
+			}
+		}
+	}
+
 	/**
 	 * Updates all dependencies of the object.
 	 */
@@ -177,6 +202,19 @@ public abstract class ObjectManager {
 		OfyService.ofy().delete().entity(object).now();
 	}
 
+	/**
+	 * Deletes the given entities from the datastore in one batch.
+	 */
+	protected void deleteObjects(Collection<?> objects) {
+		assertIsNonNullArgument(objects, "objects");
+
+		if (!objects.isEmpty()) {
+			log.config(LogBuilder.createSystemMessage().
+					addParameter("Datastore: batch delete entities", objects.size()).toString());
+			OfyService.ofy().delete().entities(objects).now();
+		}
+	}
+
 	/**
 	 * Deletes all entities of the type that have a property with the specified value, e.g.
 	 * deleteObjects(PhotoCase.class, "wasDecided", true) to delete all cases that have been decided.
@@ -13,6 +13,7 @@ import org.wahlzeit.model.PhotoCase;
 import org.wahlzeit.model.Tag;
 import org.wahlzeit.model.User;
 import org.wahlzeit.model.persistence.DatastoreAdapter.ImageWrapper;
+import org.wahlzeit.model.persistence.TagsTranslatorFactory;
 
 /**
  * A badly named class, to be renamed to ObjectifyService first, something better later.
@@ -25,6 +26,8 @@ public class OfyService {
 	 * Register all entities at startup
 	 */
 	static {
+		factory().getTranslators().add(new TagsTranslatorFactory());
+
 		factory().register(Photo.class);
 		factory().register(Globals.class);
 		factory().register(Tag.class);
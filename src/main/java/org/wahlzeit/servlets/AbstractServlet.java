@@ -26,6 +26,7 @@ import org.wahlzeit.services.LogBuilder;
 import org.wahlzeit.services.Session;
 import org.wahlzeit.services.SessionManager;
 import org.wahlzeit.utils.StringUtil;
+import org.wahlzeit.webparts.SegmentedGzipOutputStream;
 import org.wahlzeit.webparts.WebPart;
 
 import javax.servlet.ServletException;
@@ -34,6 +35,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.util.Iterator;
@@ -87,6 +89,7 @@ public abstract class AbstractServlet extends HttpServlet {
 			displayNullPage(request, response);
 		} else {
 			myGet(request, response);
+			us.saveState();
 		}
 
 		SessionManager.dropThreadLocalSession();
@@ -106,6 +109,7 @@ public abstract class AbstractServlet extends HttpServlet {
 			displayNullPage(request, response);
 		} else {
 			myPost(request, response);
+			us.saveState();
 		}
 
 		SessionManager.dropThreadLocalSession();
@@ -177,19 +181,76 @@ public abstract class AbstractServlet extends HttpServlet {
 	/**
 	 *
 	 */
-	protected void configureResponse(Session ctx, HttpServletResponse response, WebPart result) throws IOException {
+	protected void configureResponse(Session ctx, HttpServletRequest request, HttpServletResponse response,
+			WebPart result) throws IOException {
+		OutputStream out = startResponse(request, response);
+		finishResponse(ctx, result, out);
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Sets the headers of an html response and returns the stream to write the page to.
+	 */
+	protected OutputStream startResponse(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentType("text/html");
+		response.setStatus(HttpServletResponse.SC_OK);
+		return getResponseStream(request, response);
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Writes what has not been written of the page yet and ends the response.
+	 */
+	protected void finishResponse(Session ctx, WebPart result, OutputStream out) throws IOException {
 		long processingTime = ctx.getProcessingTime();
 		result.addString("processingTime", StringUtil.asStringInSeconds((processingTime == 0) ? 1 : processingTime));
 		log.config(LogBuilder.createSystemMessage().
 				addParameter("proctime", String.valueOf(processingTime)).toString());
 
-		response.setContentType("text/html");
-
-		PrintWriter out = response.getWriter();
 		result.writeOn(out);
 		out.close();
+	}
 
-		response.setStatus(HttpServletResponse.SC_OK);
+	/**
+	 * @methodtype factory
+	 *
+	 * Returns the stream to write the response body to, gzip-compressed if the client accepts it. Must be called
+	 * before any part of the body has been written.
+	 */
+	protected OutputStream getResponseStream(HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		response.addHeader("Vary", "Accept-Encoding");
+		if (isGzipAccepted(request)) {
+			response.setHeader("Content-Encoding", "gzip");
+			return new SegmentedGzipOutputStream(response.getOutputStream());
+		}
+		return response.getOutputStream();
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 */
+	protected boolean isGzipAccepted(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader("Accept-Encoding");
+		if (acceptEncoding == null) {
+			return false;
+		}
+
+		// an explicit gzip entry takes precedence over the wildcard
+		Boolean result = null;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] params = coding.split(";");
+			String name = params[0].trim();
+			boolean isAccepted = !(params.length > 1 && params[1].trim().matches("q=0(\\.0*)?"));
+			if (name.equalsIgnoreCase("gzip")) {
+				return isAccepted;
+			} else if (name.equals("*")) {
+				result = isAccepted;
+			}
+		}
+		return (result != null) && result;
 	}
 
 	/**
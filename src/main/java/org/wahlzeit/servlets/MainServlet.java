@@ -44,6 +44,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -120,9 +121,11 @@ public class MainServlet extends AbstractServlet {
 		}
 
 		if (newLink.equals(link)) { // no redirect necessary
-			WebPart result = handler.makeWebPart(us);
+			// head and early body parts are sent while the rest of the page is made
+			OutputStream out = startResponse(request, response);
+			WebPart result = handler.makeWebPart(us, out);
 			us.addProcessingTime(System.currentTimeMillis() - startTime);
-			configureResponse(us, response, result);
+			finishResponse(us, result, out);
 			us.clearSavedArgs(); // saved args go from post to next get
 			us.resetProcessingTime();
 		} else {
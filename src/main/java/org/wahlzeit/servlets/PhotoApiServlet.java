@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.servlets;
+
+import org.wahlzeit.model.Photo;
+import org.wahlzeit.model.PhotoId;
+import org.wahlzeit.model.PhotoIdIndex;
+import org.wahlzeit.model.PhotoManager;
+import org.wahlzeit.model.Tags;
+import org.wahlzeit.model.User;
+import org.wahlzeit.model.UserManager;
+import org.wahlzeit.services.LogBuilder;
+import org.wahlzeit.utils.JsonWriter;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only JSON API for photos, version 1.
+ *
+ * GET /api/v1/photos?cursor=...&limit=... lists visible photos in id order; pass the returned nextCursor to get the
+ * next page. GET /api/v1/photos/{photoId} returns a single visible photo. Responses carry an ETag derived from their
+ * content, so clients can revalidate with If-None-Match.
+ *
+ * The servlet neither touches the HttpSession nor renders templates; JSON is written to the response as it goes.
+ */
+public class PhotoApiServlet extends HttpServlet {
+
+	private static final Logger log = Logger.getLogger(PhotoApiServlet.class.getName());
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 42L; // any one does; class never serialized
+
+	/**
+	 *
+	 */
+	public static final String CURSOR = "cursor";
+	public static final String LIMIT = "limit";
+
+	/**
+	 *
+	 */
+	public static final int DEFAULT_LIMIT = 20;
+	public static final int MAX_LIMIT = 100;
+
+	/**
+	 * A photo id as PhotoId.asString writes it: "x" and lowercase base 36 digits without leading zeros; the length
+	 * limit keeps the value within a long
+	 */
+	protected static final Pattern CURSOR_PATTERN = Pattern.compile("x[1-9a-z][0-9a-z]{0,11}");
+
+	/**
+	 *
+	 */
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		try {
+			String pathInfo = request.getPathInfo();
+			if (pathInfo == null || pathInfo.equals("/")) {
+				doGetPhotos(request, response);
+			} else {
+				doGetPhoto(pathInfo.substring(1), request, response);
+			}
+		} catch (IllegalArgumentException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void doGetPhoto(String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Photo photo = getVisiblePhoto(PhotoId.getIdFromString(id));
+		if (photo == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		String etag = asETag(getContentHash(photo));
+		if (isNotModified(request, response, etag)) {
+			return;
+		}
+
+		JsonWriter json = startJson(response);
+		writePhoto(json, photo);
+		json.flush();
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void doGetPhotos(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		int limit = getLimit(request.getParameter(LIMIT));
+		String cursor = request.getParameter(CURSOR);
+		int last = PhotoId.getCurrentIdAsInt();
+		int first = (cursor == null) ? 1 : getCursor(cursor, last) + 1;
+		PhotoIdIndex visiblePhotoIds = PhotoManager.getInstance().getVisiblePhotoIds();
+
+		Photo[] page = new Photo[limit];
+		int noPhotos = 0;
+		int next = visiblePhotoIds.nextId(first);
+		for (; next != -1 && next <= last && noPhotos < limit; next = visiblePhotoIds.nextId(next + 1)) {
+			Photo photo = getVisiblePhoto(PhotoId.getIdFromInt(next));
+			if (photo != null) {
+				page[noPhotos++] = photo;
+			}
+		}
+
+		boolean hasMore = false;
+		for (; next != -1 && next <= last && !hasMore; next = visiblePhotoIds.nextId(next + 1)) {
+			hasMore = getVisiblePhoto(PhotoId.getIdFromInt(next)) != null;
+		}
+
+		long hash = first;
+		for (int i = 0; i < noPhotos; i++) {
+			hash = 31 * hash + getContentHash(page[i]);
+		}
+		hash = 31 * hash + (hasMore ? 1 : 0);
+		String etag = asETag(hash);
+		if (isNotModified(request, response, etag)) {
+			return;
+		}
+
+		JsonWriter json = startJson(response);
+		json.beginObject();
+		json.name("photos").beginArray();
+		for (int i = 0; i < noPhotos; i++) {
+			writePhoto(json, page[i]);
+		}
+		json.endArray();
+		json.name("nextCursor").value((hasMore && noPhotos > 0) ? page[noPhotos - 1].getId().asString() : null);
+		json.endObject();
+		json.flush();
+
+		log.config(LogBuilder.createSystemMessage().
+				addAction("List photos via API").
+				addParameter("photos", noPhotos).toString());
+	}
+
+	/**
+	 * @methodtype conversion
+	 *
+	 * Returns the id the cursor points to; rejects malformed cursors and cursors beyond the ids handed out so far.
+	 */
+	protected int getCursor(String cursor, int last) {
+		if (!CURSOR_PATTERN.matcher(cursor).matches()) {
+			throw new IllegalArgumentException("invalid cursor: " + cursor);
+		}
+
+		long result = Long.parseLong(cursor.substring(1), 36) - PhotoId.ID_START;
+		if (result < 0 || result > last) {
+			throw new IllegalArgumentException("invalid cursor: " + cursor);
+		}
+
+		return (int) result;
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	protected int getLimit(String limit) {
+		if (limit == null) {
+			return DEFAULT_LIMIT;
+		}
+
+		try {
+			return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limit)));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid limit: " + limit);
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the photo if it is loaded and visible; the API never reads from the datastore.
+	 */
+	protected Photo getVisiblePhoto(PhotoId id) {
+		if (id.isNullId()) {
+			return null;
+		}
+
+		Photo result = PhotoManager.getInstance().getPhotoCache().get(id);
+		return (result != null && result.isVisible()) ? result : null;
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Hash over everything the JSON representation of the photo shows.
+	 */
+	protected long getContentHash(Photo photo) {
+		long result = photo.getId().asInt();
+		result = 31 * result + Double.doubleToLongBits(photo.getPraise());
+		result = 31 * result + photo.getNoVotes();
+		result = 31 * result + photo.getStatus().asInt();
+		result = 31 * result + photo.getTags().asString().hashCode();
+		result = 31 * result + photo.getWidth();
+		result = 31 * result + photo.getHeight();
+		result = 31 * result + getOwnerName(photo).hashCode();
+		return result;
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	protected String asETag(long hash) {
+		return "\"" + Long.toHexString(hash) + "\"";
+	}
+
+	/**
+	 * @methodtype boolean-query
+	 *
+	 * Sets the ETag and answers with 304 Not Modified if the client has the current version already.
+	 */
+	protected boolean isNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+		response.setHeader("ETag", etag);
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @methodtype factory
+	 */
+	protected JsonWriter startJson(HttpServletResponse response) throws IOException {
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setStatus(HttpServletResponse.SC_OK);
+		return new JsonWriter(response.getWriter());
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void writePhoto(JsonWriter json, Photo photo) throws IOException {
+		json.beginObject();
+		json.name("id").value(photo.getId().asString());
+		json.name("owner").value(getOwnerName(photo));
+		json.name("praise").value(photo.getPraise());
+		json.name("noVotes").value(photo.getNoVotes());
+		json.name("status").value(photo.getStatus().asString());
+		json.name("width").value(photo.getWidth());
+		json.name("height").value(photo.getHeight());
+		json.name("creationTime").value(photo.getCreationTime());
+		json.name("tags").beginArray();
+		Tags tags = photo.getTags();
+		for (int i = 0; i < tags.getSize(); i++) {
+			json.value(tags.getTag(i));
+		}
+		json.endArray();
+		json.endObject();
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected String getOwnerName(Photo photo) {
+		User owner = UserManager.getInstance().getUserById(photo.getOwnerId());
+		return (owner != null) ? owner.getNickName() : "";
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.servlets;
+
+import org.wahlzeit.model.Client;
+import org.wahlzeit.model.ModelConfig;
+import org.wahlzeit.model.Photo;
+import org.wahlzeit.model.PhotoEvent;
+import org.wahlzeit.model.PhotoEventBus;
+import org.wahlzeit.model.PhotoId;
+import org.wahlzeit.model.User;
+import org.wahlzeit.model.UserSession;
+import org.wahlzeit.services.LogBuilder;
+import org.wahlzeit.services.SessionManager;
+import org.wahlzeit.utils.JsonWriter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Pushes changes of praise and status of the current user's photos as Server-Sent Events.
+ *
+ * GET /api/v1/events streams an event "photo" per changed photo, with the latest praise and status formatted for the
+ * user's language; the optional parameter ids limits the stream to some of the user's photos. Each event carries the
+ * bus sequence number as its id, so a reconnecting EventSource resumes with Last-Event-ID. If events were lost in
+ * between, an event "reset" tells the client to reload instead.
+ *
+ * A stream is ended after MAX_STREAM_TIME; EventSource reconnects by itself. This keeps requests within the request
+ * deadline and makes front ends that buffer responses deliver the events at least in these intervals.
+ */
+public class PhotoEventServlet extends AbstractServlet {
+
+	private static final Logger log = Logger.getLogger(PhotoEventServlet.class.getName());
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 42L; // any one does; class never serialized
+
+	/**
+	 *
+	 */
+	public static final String IDS = "ids";
+
+	/**
+	 *
+	 */
+	public static final long MAX_STREAM_TIME = 25 * 1000;
+	public static final long RECONNECT_TIME = 1000;
+
+	/**
+	 *
+	 */
+	public void myGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		UserSession us = (UserSession) SessionManager.getThreadLocalSession();
+		Client client = us.getClient();
+		if (!(client instanceof User)) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+
+		Set<PhotoId> photoIds = getPhotoIds((User) client, request.getParameter(IDS));
+		long lastEventId = getLastEventId(request);
+		PhotoEventBus bus = PhotoEventBus.getInstance();
+		PhotoEventBus.Subscription subscription = (lastEventId > 0)
+				? bus.subscribe(photoIds, lastEventId + 1) : bus.subscribe(photoIds);
+
+		response.setContentType("text/event-stream");
+		response.setHeader("Cache-Control", "no-cache");
+		response.setStatus(HttpServletResponse.SC_OK);
+		PrintWriter out = response.getWriter();
+		out.print("retry: " + RECONNECT_TIME + "\n\n");
+		out.flush();
+
+		ModelConfig config = client.getLanguageConfiguration();
+		int noEvents = 0;
+		long deadline = System.currentTimeMillis() + MAX_STREAM_TIME;
+		try {
+			for (long now = System.currentTimeMillis(); now < deadline; now = System.currentTimeMillis()) {
+				for (PhotoEvent event : subscription.awaitEvents(deadline - now)) {
+					writeEvent(out, event, config);
+					noEvents++;
+				}
+
+				if (subscription.isOverrun()) {
+					out.print("event: reset\ndata: \n\n");
+					break;
+				}
+
+				out.flush();
+				if (out.checkError()) {
+					break; // client is gone
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		out.close();
+
+		log.config(LogBuilder.createSystemMessage().
+				addAction("Stream photo events").
+				addParameter("photos", photoIds.size()).
+				addParameter("events", noEvents).toString());
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the ids of the user's photos that are asked for, or of all the user's photos if none are.
+	 */
+	protected Set<PhotoId> getPhotoIds(User user, String ids) {
+		Set<PhotoId> result = new HashSet<PhotoId>();
+		for (Photo photo : user.getPhotos()) {
+			result.add(photo.getId());
+		}
+
+		if (ids != null) {
+			Set<PhotoId> askedFor = new HashSet<PhotoId>();
+			for (String id : ids.split(",")) {
+				askedFor.add(PhotoId.getIdFromString(id.trim()));
+			}
+			result.retainAll(askedFor);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected long getLastEventId(HttpServletRequest request) {
+		String lastEventId = request.getHeader("Last-Event-ID");
+		if (lastEventId != null) {
+			try {
+				return Long.parseLong(lastEventId.trim());
+			} catch (NumberFormatException e) {
+				// start with the next event
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void writeEvent(PrintWriter out, PhotoEvent event, ModelConfig config) throws IOException {
+		StringWriter data = new StringWriter();
+		JsonWriter json = new JsonWriter(data);
+		json.beginObject();
+		json.name(Photo.ID).value(event.getPhotoId().asString());
+		json.name(Photo.PRAISE).value(config.asPraiseString(event.getPraise()));
+		json.name(Photo.NO_VOTES).value(event.getNoVotes());
+		json.name(Photo.STATUS).value(config.asValueString(event.getStatus()));
+		json.endObject();
+
+		out.print("id: " + event.getSequence() + "\nevent: photo\ndata: " + data + "\n\n");
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.servlets;
+
+import org.wahlzeit.model.Client;
+import org.wahlzeit.model.Photo;
+import org.wahlzeit.model.PhotoId;
+import org.wahlzeit.model.PhotoManager;
+import org.wahlzeit.model.UserSession;
+import org.wahlzeit.services.LogBuilder;
+import org.wahlzeit.services.SessionManager;
+import org.wahlzeit.utils.JsonWriter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Applies many votes of the current user in one request.
+ *
+ * POST /api/v1/praise takes the repeated parameters id and praise as pairs, e.g.
+ * id=x1abc&amp;praise=7&amp;id=x1abd&amp;praise=3. Each pair is checked like a single vote on the praise photo form,
+ * the response lists the result for each pair in order. All praised photos are then persisted in one batched write.
+ */
+public class PraiseApiServlet extends AbstractServlet {
+
+	private static final Logger log = Logger.getLogger(PraiseApiServlet.class.getName());
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 42L; // any one does; class never serialized
+
+	/**
+	 *
+	 */
+	public static final int MAX_NO_VOTES = 1000;
+
+	/**
+	 * Result of a single vote, with its name in the response
+	 */
+	public enum VoteResult {
+
+		PRAISED("praised"), ALREADY_PRAISED("alreadyPraised"), UNKNOWN_PHOTO("unknownPhoto"),
+		INVALID_PRAISE("invalidPraise");
+
+		/**
+		 *
+		 */
+		private final String name;
+
+		/**
+		 *
+		 */
+		VoteResult(String myName) {
+			name = myName;
+		}
+
+		/**
+		 * @methodtype conversion
+		 */
+		public String asString() {
+			return name;
+		}
+
+	}
+
+	/**
+	 *
+	 */
+	public void myPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		long startTime = System.currentTimeMillis();
+
+		UserSession us = (UserSession) SessionManager.getThreadLocalSession();
+		String[] photoIds = request.getParameterValues(Photo.ID);
+		String[] praises = request.getParameterValues(Photo.PRAISE);
+		if (photoIds == null || praises == null || photoIds.length != praises.length) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "expected pairs of id and praise");
+			return;
+		} else if (photoIds.length > MAX_NO_VOTES) {
+			response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "at most " + MAX_NO_VOTES + " votes");
+			return;
+		}
+
+		VoteResult[] results = new VoteResult[photoIds.length];
+		Set<Photo> praisedPhotos = new LinkedHashSet<Photo>();
+		for (int i = 0; i < photoIds.length; i++) {
+			PhotoId id = PhotoId.getIdFromString(photoIds[i]);
+			Photo photo = id.isNullId() ? null : PhotoManager.getInstance().getPhoto(id);
+			results[i] = praisePhoto(us, photo, praises[i]);
+			if (results[i] == VoteResult.PRAISED) {
+				praisedPhotos.add(photo);
+			}
+		}
+
+		PhotoManager.getInstance().savePraisedPhotos(praisedPhotos);
+
+		log.info(LogBuilder.createUserMessage().
+				addAction("PraisePhotos").
+				addParameter("votes", photoIds.length).
+				addParameter("praised", praisedPhotos.size()).toString());
+
+		response.setContentType("application/json");
+		response.setStatus(HttpServletResponse.SC_OK);
+		JsonWriter json = new JsonWriter(response.getWriter());
+		json.beginObject();
+		json.name("results").beginArray();
+		for (int i = 0; i < photoIds.length; i++) {
+			json.beginObject().name(Photo.ID).value(photoIds[i]).name("result").value(results[i].asString()).endObject();
+		}
+		json.endArray();
+		json.name("noPraised").value(praisedPhotos.size());
+		json.endObject();
+		json.flush();
+
+		us.addProcessingTime(System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Applies a single vote with the same checks as the praise photo form and returns its result.
+	 */
+	protected VoteResult praisePhoto(UserSession us, Photo photo, String praise) {
+		if (photo == null || !photo.isVisible()) {
+			return VoteResult.UNKNOWN_PHOTO;
+		}
+
+		int value;
+		try {
+			value = Integer.parseInt(praise.trim());
+		} catch (NumberFormatException e) {
+			return VoteResult.INVALID_PRAISE;
+		}
+		if (value < Photo.MIN_PRAISE || value > Photo.MAX_PRAISE) {
+			return VoteResult.INVALID_PRAISE;
+		}
+
+		if (us.hasPraisedPhoto(photo)) {
+			return VoteResult.ALREADY_PRAISED;
+		}
+
+		Client client = us.getClient();
+		photo.addToPraise(value);
+		client.addPraisedPhotoId(photo.getId());
+		us.addPraisedPhoto(photo);
+		us.addProcessedPhoto(photo);
+		return VoteResult.PRAISED;
+	}
+
+}
@@ -3,8 +3,11 @@ package org.wahlzeit.servlets;
 import com.google.appengine.api.images.Image;
 import org.apache.http.HttpStatus;
 import org.wahlzeit.model.Photo;
+import org.wahlzeit.model.PhotoDerivativeManager;
 import org.wahlzeit.model.PhotoManager;
 import org.wahlzeit.model.PhotoSize;
+import org.wahlzeit.model.PhotoSprite;
+import org.wahlzeit.model.PhotoSpriteManager;
 import org.wahlzeit.model.persistence.ImageStorage;
 import org.wahlzeit.services.LogBuilder;
 
@@ -26,11 +29,27 @@ public class StaticDataServlet extends AbstractServlet {
 
 	Logger log = Logger.getLogger(StaticDataServlet.class.getName());
 
+	/**
+	 * Seconds a sprite may be cached by clients; the content of a sprite never changes
+	 */
+	protected static final int SPRITE_MAX_AGE = 24 * 60 * 60;
+
 	@Override
 	public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
 		try {
 			String type = request.getParameter("type");
+			if ("sprite".equals(type)) {
+				doGetSprite(request, response);
+				return;
+			}
+
 			String photoId = request.getParameter("photoId");
+			String widthString = request.getParameter("width");
+			if ("image".equals(type) && widthString != null) {
+				doGetDerivative(photoId, Integer.valueOf(widthString), response);
+				return;
+			}
+
 			String sizeString = request.getParameter("size");
 			int size = Integer.valueOf(sizeString);
 			log.info(LogBuilder.createSystemMessage().
@@ -60,6 +79,63 @@ public class StaticDataServlet extends AbstractServlet {
 		}
 	}
 
+	/**
+	 * @methodtype command
+	 *
+	 * Returns the sprite image for the ordered list of photo ids given by the request. Sprites are identified by their
+	 * photo ids only, so they can be cached by the browser as well.
+	 */
+	protected void doGetSprite(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		PhotoSprite sprite = PhotoSprite.getFromKey(request.getParameter("photoIds"));
+		log.info(LogBuilder.createSystemMessage().
+				addAction("Provide photo sprite").
+				addParameter("photos", sprite.getNoPhotos()).toString());
+
+		Image image = null;
+		if (sprite.getNoPhotos() > 0) {
+			image = PhotoSpriteManager.getInstance().getSpriteImage(sprite);
+		}
+
+		if (image != null) {
+			response.setContentType("image/jpeg");
+			response.setHeader("Cache-Control", "public, max-age=" + SPRITE_MAX_AGE);
+			response.getOutputStream().write(image.getImageData());
+			response.getOutputStream().flush();
+			response.setStatus(HttpStatus.SC_OK);
+		} else {
+			log.warning(LogBuilder.createSystemMessage().addMessage("sprite not found").toString());
+			response.setStatus(HttpStatus.SC_NOT_FOUND);
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Returns the photo scaled to the requested width, snapped to the allowed widths of the
+	 * <@link>PhotoDerivativeManager</@link>.
+	 */
+	protected void doGetDerivative(String photoId, int width, HttpServletResponse response) throws IOException {
+		log.info(LogBuilder.createSystemMessage().
+				addAction("Provide photo derivative").
+				addParameter("photoId", photoId).
+				addParameter("width", width).toString());
+
+		Image image = null;
+		Photo photo = PhotoManager.getInstance().getPhoto(photoId);
+		if (photo != null) {
+			image = PhotoDerivativeManager.getInstance().getDerivative(photo, width);
+		}
+
+		if (image != null) {
+			response.getOutputStream().write(image.getImageData());
+			response.getOutputStream().flush();
+			response.setStatus(HttpStatus.SC_OK);
+		} else {
+			log.warning(LogBuilder.createSystemMessage().addMessage("image not found").toString());
+			response.setStatus(HttpStatus.SC_NOT_FOUND);
+		}
+	}
+
 	/**
 	 * @methodtype command
 	 *
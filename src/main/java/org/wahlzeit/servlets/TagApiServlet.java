@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.servlets;
+
+import org.wahlzeit.model.PhotoManager;
+import org.wahlzeit.model.Tags;
+import org.wahlzeit.utils.JsonWriter;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Tag autocompletion, version 1.
+ *
+ * GET /api/v1/tags?prefix=...&limit=... returns the most used tags starting with the prefix, most used first, as
+ * {"prefix": "fl", "tags": [{"tag": "flower", "count": 12}, ...]}. The prefix is normalized like a tag. Answers come
+ * from the in-memory TagTrie of the PhotoManager; like the photo API, the servlet does not touch the HttpSession.
+ */
+public class TagApiServlet extends HttpServlet {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 42L; // any one does; class never serialized
+
+	/**
+	 *
+	 */
+	public static final String PREFIX = "prefix";
+	public static final String LIMIT = "limit";
+
+	/**
+	 *
+	 */
+	public static final int DEFAULT_LIMIT = 10;
+	public static final int MAX_LIMIT = 50;
+
+	/**
+	 *
+	 */
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		int limit;
+		try {
+			limit = getLimit(request.getParameter(LIMIT));
+		} catch (IllegalArgumentException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+			return;
+		}
+
+		String prefix = request.getParameter(PREFIX);
+		prefix = (prefix == null) ? "" : Tags.asTag(prefix);
+		Map<String, Integer> tags = PhotoManager.getInstance().getTagTrie().getTopTags(prefix, limit);
+
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "max-age=60");
+		response.setStatus(HttpServletResponse.SC_OK);
+
+		JsonWriter json = new JsonWriter(response.getWriter());
+		json.beginObject();
+		json.name("prefix").value(prefix);
+		json.name("tags").beginArray();
+		for (Map.Entry<String, Integer> tag : tags.entrySet()) {
+			json.beginObject();
+			json.name("tag").value(tag.getKey());
+			json.name("count").value(tag.getValue());
+			json.endObject();
+		}
+		json.endArray();
+		json.endObject();
+		json.flush();
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	protected int getLimit(String limit) {
+		if (limit == null) {
+			return DEFAULT_LIMIT;
+		}
+
+		try {
+			return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limit)));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid limit: " + limit);
+		}
+	}
+
+}
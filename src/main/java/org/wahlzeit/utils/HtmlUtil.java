@@ -97,6 +97,21 @@ public class HtmlUtil {
 		return "<img src=\"" + link + "\" width=\"" + width + "\" height=\"" + height + "\" />";
 	}
 
+	/**
+	 * Lets the browser pick the best fitting image from srcset for the given sizes; link is the fallback
+	 */
+	public static String asImg(String link, String srcset, String sizes) {
+		return "<img src=\"" + link + "\" srcset=\"" + srcset + "\" sizes=\"" + sizes + "\" />";
+	}
+
+	/**
+	 * Shows the width x height window at offset x, y of a sprite image
+	 */
+	public static String asSpriteImg(String spriteLink, int x, int y, int width, int height) {
+		return "<div class=\"sprite\" style=\"width:" + width + "px;height:" + height + "px;background:url('" +
+				spriteLink + "') -" + x + "px -" + y + "px no-repeat;\"></div>";
+	}
+
 	/**
 	 *
 	 */
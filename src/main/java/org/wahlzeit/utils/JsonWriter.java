@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A JsonWriter writes JSON to a Writer as it goes, without building a document in memory first.
+ * Commas between members and elements are inserted automatically.
+ */
+public class JsonWriter {
+
+	/**
+	 *
+	 */
+	protected final Writer out;
+
+	/**
+	 *
+	 */
+	protected boolean needsComma = false;
+
+	/**
+	 *
+	 */
+	public JsonWriter(Writer myOut) {
+		out = myOut;
+	}
+
+	/**
+	 *
+	 */
+	public JsonWriter beginObject() throws IOException {
+		writeComma();
+		out.write('{');
+		return this;
+	}
+
+	/**
+	 *
+	 */
+	public JsonWriter endObject() throws IOException {
+		out.write('}');
+		needsComma = true;
+		return this;
+	}
+
+	/**
+	 *
+	 */
+	public JsonWriter beginArray() throws IOException {
+		writeComma();
+		out.write('[');
+		return this;
+	}
+
+	/**
+	 *
+	 */
+	public JsonWriter endArray() throws IOException {
+		out.write(']');
+		needsComma = true;
+		return this;
+	}
+
+	/**
+	 *
+	 */
+	public JsonWriter name(String name) throws IOException {
+		writeComma();
+		writeString(name);
+		out.write(':');
+		return this;
+	}
+
+	/**
+	 *
+	 */
+	public JsonWriter value(String value) throws IOException {
+		writeComma();
+		if (value == null) {
+			out.write("null");
+		} else {
+			writeString(value);
+		}
+		needsComma = true;
+		return this;
+	}
+
+	/**
+	 *
+	 */
+	public JsonWriter value(long value) throws IOException {
+		writeComma();
+		out.write(Long.toString(value));
+		needsComma = true;
+		return this;
+	}
+
+	/**
+	 * JSON has no representation of NaN and infinity, these are written as null
+	 */
+	public JsonWriter value(double value) throws IOException {
+		writeComma();
+		out.write((Double.isNaN(value) || Double.isInfinite(value)) ? "null" : Double.toString(value));
+		needsComma = true;
+		return this;
+	}
+
+	/**
+	 *
+	 */
+	public JsonWriter value(boolean value) throws IOException {
+		writeComma();
+		out.write(value ? "true" : "false");
+		needsComma = true;
+		return this;
+	}
+
+	/**
+	 *
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 *
+	 */
+	protected void writeComma() throws IOException {
+		if (needsComma) {
+			out.write(',');
+			needsComma = false;
+		}
+	}
+
+	/**
+	 *
+	 */
+	protected void writeString(String value) throws IOException {
+		out.write('"');
+		int start = 0;
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			String escape = null;
+			if (c == '"') {
+				escape = "\\\"";
+			} else if (c == '\\') {
+				escape = "\\\\";
+			} else if (c == '\n') {
+				escape = "\\n";
+			} else if (c == '\r') {
+				escape = "\\r";
+			} else if (c == '\t') {
+				escape = "\\t";
+			} else if (c < 0x20 || c == '\u2028' || c == '\u2029' || c == '<') {
+				escape = String.format("\\u%04x", (int) c);
+			}
+
+			if (escape != null) {
+				out.write(value, start, i - start);
+				out.write(escape);
+				start = i + 1;
+			}
+		}
+		out.write(value, start, length - start);
+		out.write('"');
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.webparts;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A SegmentedGzipOutputStream writes a gzip stream that can take pre-compressed segments in between regular data.
+ * Pre-compressed segments are raw deflate data that ends on a byte boundary without a final block, as produced by
+ * compress(). Deflate streams of this kind can be concatenated, so static template text is compressed once and
+ * copied into every response; only the dynamic values are compressed per request.
+ */
+public class SegmentedGzipOutputStream extends OutputStream {
+
+	/**
+	 *
+	 */
+	protected static final byte[] GZIP_HEADER = {
+			(byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+	};
+
+	/**
+	 *
+	 */
+	protected static final int BUFFER_SIZE = 4096;
+
+	/**
+	 *
+	 */
+	protected final OutputStream out;
+	protected final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	protected final byte[] buffer = new byte[BUFFER_SIZE];
+	protected final CRC32 crc = new CRC32();
+	protected long size = 0;
+
+	/**
+	 * Whether the deflater holds data that has not been flushed to a byte boundary yet
+	 */
+	protected boolean hasPendingData = false;
+	protected boolean isFinished = false;
+
+	/**
+	 * @methodtype conversion
+	 *
+	 * Compresses data into a raw deflate segment that can be passed to writeCompressed.
+	 */
+	public static byte[] compress(byte[] data) {
+		if (data.length == 0) {
+			return data;
+		}
+
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+		try {
+			deflater.setInput(data);
+			byte[] result = new byte[data.length + 64];
+			int length = 0;
+			while (true) {
+				length += deflater.deflate(result, length, result.length - length, Deflater.SYNC_FLUSH);
+				if (length < result.length) {
+					break;
+				}
+				byte[] larger = new byte[result.length * 2];
+				System.arraycopy(result, 0, larger, 0, length);
+				result = larger;
+			}
+
+			byte[] compressed = new byte[length];
+			System.arraycopy(result, 0, compressed, 0, length);
+			return compressed;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 *
+	 */
+	public SegmentedGzipOutputStream(OutputStream myOut) throws IOException {
+		out = myOut;
+		out.write(GZIP_HEADER);
+	}
+
+	/**
+	 *
+	 */
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	/**
+	 *
+	 */
+	public void write(byte[] data, int offset, int length) throws IOException {
+		if (length == 0) {
+			return;
+		}
+
+		crc.update(data, offset, length);
+		size += length;
+
+		deflater.setInput(data, offset, length);
+		while (!deflater.needsInput()) {
+			int count = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+			out.write(buffer, 0, count);
+		}
+		hasPendingData = true;
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Writes data whose compressed form is known already; compressed must be compress(data).
+	 */
+	public void writeCompressed(byte[] data, byte[] compressed) throws IOException {
+		if (data.length == 0) {
+			return;
+		}
+
+		// the deflater must not refer back across the segment, so its history is dropped
+		flushDeflater();
+		deflater.reset();
+
+		crc.update(data, 0, data.length);
+		size += data.length;
+		out.write(compressed);
+	}
+
+	/**
+	 * Sends all data written so far to the client
+	 */
+	public void flush() throws IOException {
+		flushDeflater();
+		out.flush();
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Ends the gzip stream without closing the underlying stream.
+	 */
+	public void finish() throws IOException {
+		if (isFinished) {
+			return;
+		}
+
+		flushDeflater();
+		deflater.reset();
+		deflater.finish();
+		while (!deflater.finished()) {
+			int count = deflater.deflate(buffer);
+			out.write(buffer, 0, count);
+		}
+		deflater.end();
+
+		writeInt((int) crc.getValue());
+		writeInt((int) size);
+		isFinished = true;
+	}
+
+	/**
+	 *
+	 */
+	public void close() throws IOException {
+		finish();
+		out.close();
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void flushDeflater() throws IOException {
+		if (!hasPendingData) {
+			return;
+		}
+
+		int count;
+		do {
+			count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+			out.write(buffer, 0, count);
+		} while (count == buffer.length);
+		hasPendingData = false;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void writeInt(int value) throws IOException {
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+		out.write((value >> 16) & 0xff);
+		out.write((value >> 24) & 0xff);
+	}
+
+}
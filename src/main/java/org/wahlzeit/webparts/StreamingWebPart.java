@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.webparts;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A StreamingWebPart sends itself to an OutputStream while it is being filled. A page handler writes the page up to a
+ * slot as soon as all values before that slot are known, so the browser can start loading style sheets and images
+ * while the rest of the page is still computed. Values added for slots that have been written already are ignored.
+ */
+public class StreamingWebPart extends WebPart {
+
+	/**
+	 *
+	 */
+	protected OutputStream out;
+
+	/**
+	 * Number of steps written so far
+	 */
+	protected int noWrittenSteps = 0;
+
+	/**
+	 *
+	 */
+	public StreamingWebPart(WebPartTemplate myTemplate, OutputStream myOut) {
+		super(myTemplate);
+		out = myOut;
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Writes everything up to and including the value of the slot with the given key and sends it to the client. Does
+	 * nothing if the slot has been written already.
+	 */
+	public void writeThrough(String key) throws IOException {
+		String[] keys = template.getKeys();
+		for (int i = noWrittenSteps; i < keys.length; i++) {
+			if (key.equals(keys[i])) {
+				writeStepsOn(out, noWrittenSteps, i + 1);
+				noWrittenSteps = i + 1;
+				out.flush();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Writes the remainder of the part; the stream must be the one the part was created with.
+	 */
+	public void writeOn(OutputStream stream) throws IOException {
+		writeStepsOn(stream, noWrittenSteps, getNoSteps());
+		noWrittenSteps = getNoSteps();
+	}
+
+}
@@ -24,6 +24,7 @@ import org.wahlzeit.utils.EnumValue;
 import org.wahlzeit.utils.HtmlUtil;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
@@ -207,4 +208,62 @@ public class WebPart implements Writable {
 		out.write(tmpl, start, tmpl.length() - start);
 	}
 
+	/**
+	 * Writes the pre-encoded template segments as they are, or pre-compressed if the stream is gzipped; only the values
+	 * need encoding
+	 */
+	public void writeOn(OutputStream out) throws IOException {
+		writeStepsOn(out, 0, getNoSteps());
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Step i writes segment i followed by the value of slot i; the last step only writes the last segment.
+	 */
+	protected int getNoSteps() {
+		return template.getKeys().length + 1;
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Writes the steps from (inclusive) to (exclusive).
+	 */
+	protected void writeStepsOn(OutputStream out, int from, int to) throws IOException {
+		byte[][] segments = template.getSegments();
+		byte[][] compressedSegments = template.getCompressedSegments();
+		String[] keys = template.getKeys();
+		SegmentedGzipOutputStream gzipOut = null;
+		if (out instanceof SegmentedGzipOutputStream) {
+			gzipOut = (SegmentedGzipOutputStream) out;
+		}
+
+		for (int i = from; i < to; i++) {
+			if (gzipOut != null) {
+				gzipOut.writeCompressed(segments[i], compressedSegments[i]);
+			} else {
+				out.write(segments[i]);
+			}
+
+			if (i == keys.length) {
+				break;
+			}
+
+			String key = keys[i];
+			if (key != null) {
+				Object object = parts.get(key);
+				if (object != null) {
+					if (object instanceof Writable) {
+						Writable part = (Writable) object;
+						part.writeOn(out);
+					} else {
+						String value = object.toString();
+						out.write(value.getBytes(WebPartTemplate.CHARSET));
+					}
+				}
+			}
+		}
+	}
+
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.webparts;
+
+import org.wahlzeit.services.Persistent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The WebPartCache keeps rendered WebParts whose output is the same for all users. A fragment is keyed by its
+ * template name, which includes the language, and the versions of the persistent objects it was rendered from. Any
+ * change to such an object changes its version and with it the key, so stale fragments are never found again and age
+ * out of the bounded cache.
+ */
+public class WebPartCache {
+
+	/**
+	 *
+	 */
+	public static final int MAX_NO_FRAGMENTS = 1024;
+
+	/**
+	 *
+	 */
+	protected static final WebPartCache instance = new WebPartCache();
+
+	/**
+	 *
+	 */
+	protected final Map<String, Fragment> fragments = new LinkedHashMap<String, Fragment>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Fragment> eldest) {
+			return size() > MAX_NO_FRAGMENTS;
+		}
+	};
+
+	/**
+	 *
+	 */
+	public static WebPartCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 *
+	 */
+	protected WebPartCache() {
+		// do nothing
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	public static String asKey(WebPartTemplate template, Persistent... dependencies) {
+		StringBuilder result = new StringBuilder(template.getName());
+		for (Persistent dependency : dependencies) {
+			result.append(':').append((dependency != null) ? dependency.getVersion() : 0);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * @methodtype get
+	 *
+	 * Returns the fragment for the key, or null if there is none or it was rendered from an outdated template.
+	 */
+	public Writable getFragment(String key, WebPartTemplate template) {
+		Fragment result;
+		synchronized (fragments) {
+			result = fragments.get(key);
+		}
+		return (result != null && result.template == template) ? result : null;
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Renders the part once and keeps the resulting bytes, plain and compressed; returns the fragment to use in place
+	 * of the part.
+	 */
+	public Writable putFragment(String key, WebPart part) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			part.writeOn(out);
+		} catch (IOException e) {
+			// can not happen for byte array streams; fall back to the uncached part
+			return part;
+		}
+
+		byte[] bytes = out.toByteArray();
+		Fragment result = new Fragment(part.template, bytes, SegmentedGzipOutputStream.compress(bytes));
+		synchronized (fragments) {
+			fragments.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public void clear() {
+		synchronized (fragments) {
+			fragments.clear();
+		}
+	}
+
+	/**
+	 * A pre-rendered WebPart
+	 */
+	protected static class Fragment implements Writable {
+
+		/**
+		 *
+		 */
+		protected final WebPartTemplate template;
+		protected final byte[] bytes;
+		protected final byte[] compressedBytes;
+
+		/**
+		 *
+		 */
+		protected Fragment(WebPartTemplate myTemplate, byte[] myBytes, byte[] myCompressedBytes) {
+			template = myTemplate;
+			bytes = myBytes;
+			compressedBytes = myCompressedBytes;
+		}
+
+		/**
+		 *
+		 */
+		public void writeOn(Writer out) throws IOException {
+			out.write(new String(bytes, WebPartTemplate.CHARSET));
+		}
+
+		/**
+		 *
+		 */
+		public void writeOn(OutputStream out) throws IOException {
+			if (out instanceof SegmentedGzipOutputStream) {
+				((SegmentedGzipOutputStream) out).writeCompressed(bytes, compressedBytes);
+			} else {
+				out.write(bytes);
+			}
+		}
+
+	}
+
+}
@@ -20,6 +20,8 @@
 
 package org.wahlzeit.webparts;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -29,6 +31,11 @@ import java.util.List;
  */
 public class WebPartTemplate {
 
+	/**
+	 * Encoding of the pages delivered to the browser
+	 */
+	public static final Charset CHARSET = StandardCharsets.UTF_8;
+
 	/**
 	 *
 	 */
@@ -45,6 +52,12 @@ public class WebPartTemplate {
 	protected String[] keys = null;
 	protected int[] slots = null;
 
+	/**
+	 * The template text between the slots, encoded once so that writing needs no further encoding
+	 */
+	protected byte[][] segments = null;
+	protected byte[][] compressedSegments = null;
+
 	/**
 	 *
 	 */
@@ -89,6 +102,19 @@ public class WebPartTemplate {
 		}
 
 		template = buffer.toString();
+
+		segments = new byte[length + 1][];
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			segments[i] = template.substring(start, slots[i]).getBytes(CHARSET);
+			start = slots[i];
+		}
+		segments[length] = template.substring(start).getBytes(CHARSET);
+
+		compressedSegments = new byte[segments.length][];
+		for (int i = 0; i < segments.length; i++) {
+			compressedSegments[i] = SegmentedGzipOutputStream.compress(segments[i]);
+		}
 	}
 
 	/**
@@ -119,4 +145,18 @@ public class WebPartTemplate {
 		return slots; // @FIXME needs cloning?
 	}
 
+	/**
+	 * Segment i precedes slot i; the last segment follows the last slot
+	 */
+	public byte[][] getSegments() {
+		return segments;
+	}
+
+	/**
+	 * The segments as raw deflate data for a SegmentedGzipOutputStream
+	 */
+	public byte[][] getCompressedSegments() {
+		return compressedSegments;
+	}
+
 }
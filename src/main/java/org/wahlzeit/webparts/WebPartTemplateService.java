@@ -27,13 +27,23 @@ import org.wahlzeit.services.LogBuilder;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
  * The WebPartTemplateService creates WebPartTemplates upon request by reading them from disk.
  * It requires configuration with a template directory and uses the following naming convention: tmplDir/language/part-type/part-name.html
+ *
+ * All templates are loaded at startup. Templates are immutable once initialized, so a changed template file is
+ * reloaded into a new template that replaces the old one in a single map update; readers never need a lock.
  */
 public class WebPartTemplateService {
 
@@ -42,15 +52,27 @@ public class WebPartTemplateService {
 	 */
 	protected static final WebPartTemplateService instance = new WebPartTemplateService();
 	private static final Logger log = Logger.getLogger(WebPartTemplateService.class.getName());
+
+	/**
+	 *
+	 */
+	public static final String TEMPLATE_FILE_EXTENSION = ".html";
+
 	/**
 	 *
 	 */
-	protected Map<String, WebPartTemplate> templates = new HashMap<String, WebPartTemplate>();
+	protected Map<String, WebPartTemplate> templates = new ConcurrentHashMap<String, WebPartTemplate>();
 	/**
 	 *
 	 */
 	protected ConfigDir templatesDir = null;
 
+	/**
+	 * Only set while template files are watched for changes
+	 */
+	protected WatchService watchService = null;
+	protected Map<WatchKey, File> watchedDirs = new ConcurrentHashMap<WatchKey, File>();
+
 	/**
 	 *
 	 */
@@ -91,7 +113,7 @@ public class WebPartTemplateService {
 	 */
 	protected void loadTemplate(String shortName) throws IOException {
 		WebPartTemplate template = new WebPartTemplate(shortName);
-		String fileName = getTemplatesDir().getAbsoluteConfigFileName(shortName + ".html");
+		String fileName = getTemplatesDir().getAbsoluteConfigFileName(shortName + TEMPLATE_FILE_EXTENSION);
 		log.config(LogBuilder.createSystemMessage().
 				addAction("open html template file").
 				addParameter("file name", fileName).toString());
@@ -113,6 +135,188 @@ public class WebPartTemplateService {
 		}
 	}
 
+	/**
+	 * @methodtype command
+	 *
+	 * Loads all templates found in the default and custom template directories.
+	 */
+	public void loadAllTemplates() throws IOException {
+		File[] dirs = getTemplateRootDirs();
+		for (File dir : dirs) {
+			loadAllTemplates(dir, "");
+		}
+
+		log.config(LogBuilder.createSystemMessage().
+				addAction("Load all templates").
+				addParameter("number of templates", templates.size()).toString());
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void loadAllTemplates(File dir, String prefix) throws IOException {
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		for (File file : files) {
+			String name = prefix + file.getName();
+			if (file.isDirectory()) {
+				loadAllTemplates(file, name + File.separator);
+			} else if (name.endsWith(TEMPLATE_FILE_EXTENSION)) {
+				loadTemplate(name.substring(0, name.length() - TEMPLATE_FILE_EXTENSION.length()));
+			}
+		}
+	}
+
+	/**
+	 * @methodtype get
+	 */
+	protected File[] getTemplateRootDirs() {
+		String dirName = getTemplatesDir().asString() + File.separator;
+		return new File[] {
+				new File(dirName + ConfigDir.DEFAULT_DIR_NAME),
+				new File(dirName + ConfigDir.CUSTOM_DIR_NAME)
+		};
+	}
+
+	/**
+	 * @methodtype command
+	 *
+	 * Starts a background thread that reloads templates whose files change. Meant for development only.
+	 */
+	public synchronized void startWatchingTemplates() throws IOException {
+		if (watchService != null) {
+			return;
+		}
+
+		watchService = FileSystems.getDefault().newWatchService();
+		for (File dir : getTemplateRootDirs()) {
+			watchDir(dir);
+		}
+
+		final WatchService service = watchService;
+		Thread watcher = new Thread(new Runnable() {
+			public void run() {
+				watchTemplates(service);
+			}
+		}, "WebPartTemplateWatcher");
+		watcher.setDaemon(true);
+		watcher.start();
+
+		log.config(LogBuilder.createSystemMessage().addAction("Start watching templates").toString());
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	public synchronized void stopWatchingTemplates() {
+		if (watchService == null) {
+			return;
+		}
+
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			log.warning(LogBuilder.createSystemMessage().
+					addException("Problem when closing template watcher", e).toString());
+		}
+		watchService = null;
+		watchedDirs.clear();
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void watchDir(File dir) throws IOException {
+		if (!dir.isDirectory()) {
+			return;
+		}
+
+		WatchKey key = dir.toPath().register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		watchedDirs.put(key, dir);
+
+		File[] subDirs = dir.listFiles();
+		if (subDirs != null) {
+			for (File subDir : subDirs) {
+				watchDir(subDir);
+			}
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void watchTemplates(WatchService service) {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				File dir = watchedDirs.get(key);
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (dir != null && event.context() instanceof Path) {
+						File file = new File(dir, event.context().toString());
+						handleTemplateFileChange(file);
+					}
+				}
+				key.reset();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// watching has been stopped
+		}
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void handleTemplateFileChange(File file) {
+		try {
+			if (file.isDirectory()) {
+				synchronized (this) {
+					if (watchService != null) {
+						watchDir(file);
+					}
+				}
+				return;
+			}
+
+			String shortName = getShortName(file);
+			if (shortName != null) {
+				log.info(LogBuilder.createSystemMessage().
+						addAction("Reload changed template").
+						addParameter("template name", shortName).toString());
+				loadTemplate(shortName);
+			}
+		} catch (IOException e) {
+			log.warning(LogBuilder.createSystemMessage().
+					addParameter("file", file.getPath()).
+					addException("Problem reloading template", e).toString());
+		}
+	}
+
+	/**
+	 * @methodtype conversion
+	 *
+	 * Returns the template name of the file, e.g. en/pages/ShowPhotoPage, or null if it is no template.
+	 */
+	protected String getShortName(File file) {
+		String fileName = file.getPath();
+		if (!fileName.endsWith(TEMPLATE_FILE_EXTENSION)) {
+			return null;
+		}
+
+		for (File dir : getTemplateRootDirs()) {
+			String dirName = dir.getPath() + File.separator;
+			if (fileName.startsWith(dirName)) {
+				return fileName.substring(dirName.length(), fileName.length() - TEMPLATE_FILE_EXTENSION.length());
+			}
+		}
+		return null;
+	}
+
 	/**
 	 *
 	 */
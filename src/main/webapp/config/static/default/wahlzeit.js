@@ -61,3 +61,67 @@ function validate(form) {
 	
 	form.submit();
 }
+
+function watchPhotoEvents() {
+	if (!window.EventSource || !window.JSON) {
+		return;
+	}
+
+	var fields = {};
+	var forms = document.getElementsByName('showUserPhotoForm');
+	for (var i = 0; i < forms.length; i++) {
+		var form = forms[i];
+		fields[form.elements['id'].value] = {
+			praise: form.getElementsByClassName('praise')[0],
+			status: form.getElementsByClassName('status')[0]
+		};
+	}
+
+	var source = new EventSource('/api/v1/events');
+	source.addEventListener('photo', function(e) {
+		var photo = JSON.parse(e.data);
+		var field = fields[photo.id];
+		if (field) {
+			field.praise.textContent = photo.praise;
+			field.status.textContent = photo.status;
+		}
+	});
+	source.addEventListener('reset', function(e) {
+		source.close();
+		location.reload();
+	});
+}
+
+function completeTags(input) {
+	if (!window.XMLHttpRequest || !window.JSON) {
+		return;
+	}
+
+	var value = input.value;
+	var separator = value.lastIndexOf(',');
+	var head = (separator < 0) ? '' : value.substring(0, separator + 1) + ' ';
+	var prefix = value.substring(separator + 1).replace(/^\s+/, '');
+	if (prefix.length == 0) {
+		return;
+	}
+
+	var request = new XMLHttpRequest();
+	request.open('GET', '/api/v1/tags?prefix=' + encodeURIComponent(prefix));
+	request.onload = function() {
+		if (request.status != 200 || input.value != value) {
+			return;
+		}
+
+		var list = document.getElementById(input.getAttribute('list'));
+		while (list.firstChild) {
+			list.removeChild(list.firstChild);
+		}
+		var tags = JSON.parse(request.responseText).tags;
+		for (var i = 0; i < tags.length; i++) {
+			var option = document.createElement('option');
+			option.value = head + tags[i].tag;
+			list.appendChild(option);
+		}
+	};
+	request.send();
+}
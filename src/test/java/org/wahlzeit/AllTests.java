@@ -9,8 +9,14 @@ import org.wahlzeit.model.persistence.DatastoreAdapterTest;
 import org.wahlzeit.services.EmailAddressTest;
 import org.wahlzeit.services.EmailServiceTests;
 import org.wahlzeit.services.LogBuilderTest;
+import org.wahlzeit.servlets.PhotoApiServletTest;
+import org.wahlzeit.utils.JsonWriterTest;
 import org.wahlzeit.utils.StringUtilTest;
 import org.wahlzeit.utils.VersionTest;
+import org.wahlzeit.webparts.SegmentedGzipOutputStreamTest;
+import org.wahlzeit.webparts.WebPartCacheTest;
+import org.wahlzeit.webparts.WebPartTemplateServiceTest;
+import org.wahlzeit.webparts.WebPartTest;
 
 @RunWith(Suite.class)
 @SuiteClasses({ //
@@ -20,8 +26,14 @@ import org.wahlzeit.utils.VersionTest;
 	EmailAddressTest.class, //
 	EmailServiceTests.class, //
 	LogBuilderTest.class, //
+	PhotoApiServletTest.class, //
+	JsonWriterTest.class, //
 	StringUtilTest.class, //
 	VersionTest.class, //
+	SegmentedGzipOutputStreamTest.class, //
+	WebPartCacheTest.class, //
+	WebPartTemplateServiceTest.class, //
+	WebPartTest.class, //
 })
 public class AllTests {
 
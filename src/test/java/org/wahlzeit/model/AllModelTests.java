@@ -8,15 +8,35 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({
 	AccessRightsTest.class,
 	CoordinateTest.class,
+	ExifReaderTest.class,
 	FlagReasonTest.class,
 	GenderTest.class,
 	GuestTest.class,
+	HeavyHitterSketchTest.class,
 	LocationTest.class,
 	MandelbrotPhotoTest.class,
 	MandelbrotPhotoFactoryTest.class,
 	MandelbrotPhotoManagerTest.class,
+	PhotoAttributeIndexTest.class,
+	PhotoDerivativeManagerTest.class,
+	PhotoEventBusTest.class,
 	PhotoFilterTest.class,
+	PhotoIdIndexTest.class,
+	PhotoIdSetTest.class,
+	PhotoLeaderboardsTest.class,
+	PhotoManagerTest.class,
+	PhotoRankingTest.class,
+	PhotoRecommenderTest.class,
+	PhotoSamplerTest.class,
+	PhotoSearchIndexTest.class,
+	PhotoSpriteTest.class,
+	PhotoTagIndexTest.class,
+	PraiseCountersTest.class,
+	TagDictionaryTest.class,
+	TagQueryTest.class,
+	TagTrieTest.class,
 	TagsTest.class,
+	TrendingPhotosTest.class,
 	UserStatusTest.class,
 	MandelbrotTest.class,
 	MandelbrotTypeTest.class,
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the ExifReader class.
+ */
+public class ExifReaderTest {
+
+	private static final double EPSILON = 1e-6;
+
+	/**
+	 *
+	 */
+	@Test
+	public void testReadGpsBigEndian() throws IOException {
+		ExifData data = ExifReader.read(asJpeg(createExifSegment(ByteOrder.BIG_ENDIAN)));
+		assertGpsExifData(data);
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testReadGpsLittleEndian() throws IOException {
+		ExifData data = ExifReader.read(asJpeg(createExifSegment(ByteOrder.LITTLE_ENDIAN)));
+		assertGpsExifData(data);
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testReadNonJpeg() throws IOException {
+		ExifData data = ExifReader.read(new ByteArrayInputStream("GIF89a".getBytes(StandardCharsets.US_ASCII)));
+		assertFalse(data.hasLocation());
+		assertFalse(data.hasCaptureTime());
+		assertEquals(ExifData.DEFAULT_ORIENTATION, data.getOrientation());
+	}
+
+	/**
+	 * Offsets near Integer.MAX_VALUE must not overflow into an out of bounds index
+	 */
+	@Test
+	public void testReadHugeOffsets() throws IOException {
+		byte[] segment = createExifSegment(ByteOrder.BIG_ENDIAN);
+		ByteBuffer.wrap(segment).putInt(6 + 4, 0x7FFFFFFF); // IFD0
+		ExifData data = ExifReader.read(asJpeg(segment));
+		assertFalse(data.hasLocation());
+		assertFalse(data.hasCaptureTime());
+
+		segment = createExifSegment(ByteOrder.BIG_ENDIAN);
+		ByteBuffer.wrap(segment).putInt(6 + 30, 0x7FFFFFFF); // Exif IFD
+		ByteBuffer.wrap(segment).putInt(6 + 90, 0x7FFFFFFF); // GPS latitude value
+		data = ExifReader.read(asJpeg(segment));
+		assertFalse(data.hasLocation());
+		assertFalse(data.hasCaptureTime());
+		assertEquals(6, data.getOrientation());
+	}
+
+	/**
+	 * An empty altitude as the last bytes of the segment must not be read past the end
+	 */
+	@Test
+	public void testReadEmptyAltitudeAtEnd() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(46);
+		buffer.put("Exif".getBytes(StandardCharsets.US_ASCII)).put((byte) 0).put((byte) 0);
+		buffer.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+		buffer.putShort((short) 1);
+		putEntry(buffer, 0x8825, 4, 1, 26); // GPS IFD right after IFD0
+		buffer.putInt(0);
+		buffer.putShort((short) 1);
+		putEntry(buffer, 0x0006, 5, 0, 0); // altitude without a value
+
+		ExifData data = ExifReader.read(asJpeg(buffer.array()));
+		assertFalse(data.hasLocation());
+	}
+
+	/**
+	 * An altitude below the center of the earth must not fail the location
+	 */
+	@Test
+	public void testReadImpossibleAltitude() throws IOException {
+		byte[] segment = createExifSegment(ByteOrder.BIG_ENDIAN);
+		segment[6 + 126] = 1; // AltitudeRef: below sea level
+		ByteBuffer.wrap(segment).putInt(6 + 214, 0xFFFFFFFF).putInt(6 + 218, 1); // altitude
+
+		ExifData data = ExifReader.read(asJpeg(segment));
+		assertTrue(data.hasLocation());
+		Location expected = Location.fromGeographic(49.575, 11.02, 0.0);
+		assertTrue(expected.getCoordinate().isEqual(data.getLocation().getCoordinate()));
+	}
+
+	/**
+	 * Must stop at the start of scan without looking at the (here: missing) image data
+	 */
+	@Test
+	public void testReadWithoutExif() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(new byte[] {(byte) 0xFF, (byte) 0xD8});
+		out.write(new byte[] {(byte) 0xFF, (byte) 0xE0, 0, 4, 1, 2}); // APP0
+		out.write(new byte[] {(byte) 0xFF, (byte) 0xDA, 0, 2}); // SOS
+
+		ExifData data = ExifReader.read(new ByteArrayInputStream(out.toByteArray()));
+		assertFalse(data.hasLocation());
+		assertNull(data.getLocation());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testFromGeographic() throws InvalidResultException {
+		Location north = Location.fromGeographic(90.0, 0.0, 0.0);
+		Location equator = Location.fromGeographic(0.0, 90.0, 0.0);
+		Location south = Location.fromGeographic(-90.0, 0.0, 0.0);
+
+		SphericCoordinate sc = equator.getCoordinate().asSphericCoordinate();
+		assertEquals(Location.EARTH_RADIUS, sc.getRadius(), EPSILON);
+		assertEquals(Math.PI / 2, sc.getTheta(), EPSILON);
+		assertEquals(Math.PI / 2, sc.getPhi(), EPSILON);
+
+		assertEquals(Math.PI / 2, north.getCoordinate().getCentralAngle(equator.getCoordinate()), EPSILON);
+		assertEquals(Math.PI, north.getCoordinate().getCentralAngle(south.getCoordinate()), EPSILON);
+	}
+
+	/**
+	 *
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromGeographicOutOfRange() {
+		Location.fromGeographic(91.0, 0.0, 0.0);
+	}
+
+	/**
+	 *
+	 */
+	protected void assertGpsExifData(ExifData data) {
+		assertTrue(data.hasLocation());
+		assertEquals(6, data.getOrientation());
+		assertEquals(1546345815000L, data.getCaptureTime()); // 2019-01-01 12:30:15 UTC
+
+		// 49°34'30" N, 11°1'12" E, 280 m
+		Location expected = Location.fromGeographic(49.575, 11.02, 280.0);
+		assertTrue(expected.getCoordinate().isEqual(data.getLocation().getCoordinate()));
+	}
+
+	/**
+	 *
+	 */
+	protected ByteArrayInputStream asJpeg(byte[] exifSegment) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(new byte[] {(byte) 0xFF, (byte) 0xD8});
+		out.write(new byte[] {(byte) 0xFF, (byte) 0xE0, 0, 4, 1, 2}); // APP0 to be skipped
+		out.write(new byte[] {(byte) 0xFF, (byte) 0xE1});
+		int length = exifSegment.length + 2;
+		out.write(new byte[] {(byte) (length >> 8), (byte) length});
+		out.write(exifSegment);
+		out.write(new byte[] {(byte) 0xFF, (byte) 0xDA, 0, 2}); // SOS
+		out.write(new byte[] {0x12, 0x34}); // "image data"
+		return new ByteArrayInputStream(out.toByteArray());
+	}
+
+	/**
+	 * Creates "Exif\0\0" followed by a TIFF structure with IFD0, Exif IFD, and GPS IFD.
+	 */
+	protected byte[] createExifSegment(ByteOrder order) {
+		ByteBuffer buffer = ByteBuffer.allocate(512).order(order);
+		buffer.put("Exif".getBytes(StandardCharsets.US_ASCII)).put((byte) 0).put((byte) 0);
+		int tiff = buffer.position();
+
+		buffer.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M'));
+		buffer.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M'));
+		buffer.putShort((short) 42).putInt(8);
+
+		int ifd0 = 8;
+		int exifIfd = ifd0 + 2 + 3 * 12 + 4;
+		int gpsIfd = exifIfd + 2 + 1 * 12 + 4;
+		int data = gpsIfd + 2 + 6 * 12 + 4;
+
+		// IFD0: orientation, Exif IFD, GPS IFD
+		buffer.position(tiff + ifd0);
+		buffer.putShort((short) 3);
+		putEntry(buffer, 0x0112, 3, 1, 0);
+		buffer.putShort(buffer.position() - 4, (short) 6);
+		putEntry(buffer, 0x8769, 4, 1, exifIfd);
+		putEntry(buffer, 0x8825, 4, 1, gpsIfd);
+		buffer.putInt(0);
+
+		// Exif IFD: DateTimeOriginal
+		int dateTime = data;
+		buffer.putShort((short) 1);
+		putEntry(buffer, 0x9003, 2, 20, dateTime);
+		buffer.putInt(0);
+
+		// GPS IFD
+		int latitude = dateTime + 20;
+		int longitude = latitude + 24;
+		int altitude = longitude + 24;
+		buffer.putShort((short) 6);
+		putEntry(buffer, 0x0001, 2, 2, 0);
+		buffer.put(buffer.position() - 4, (byte) 'N');
+		putEntry(buffer, 0x0002, 5, 3, latitude);
+		putEntry(buffer, 0x0003, 2, 2, 0);
+		buffer.put(buffer.position() - 4, (byte) 'E');
+		putEntry(buffer, 0x0004, 5, 3, longitude);
+		putEntry(buffer, 0x0005, 1, 1, 0);
+		putEntry(buffer, 0x0006, 5, 1, altitude);
+		buffer.putInt(0);
+
+		buffer.position(tiff + dateTime);
+		buffer.put("2019:01:01 12:30:15\0".getBytes(StandardCharsets.US_ASCII));
+		buffer.putInt(49).putInt(1).putInt(34).putInt(1).putInt(30).putInt(1);
+		buffer.putInt(11).putInt(1).putInt(12).putInt(10).putInt(0).putInt(1);
+		buffer.putInt(2800).putInt(10);
+
+		byte[] result = new byte[buffer.position()];
+		buffer.position(0);
+		buffer.get(result);
+		return result;
+	}
+
+	/**
+	 *
+	 */
+	protected void putEntry(ByteBuffer buffer, int tag, int type, int count, int value) {
+		buffer.putShort((short) tag).putShort((short) type).putInt(count).putInt(value);
+	}
+
+}
@@ -5,11 +5,13 @@ import com.googlecode.objectify.Work;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.RuleChain;
+import org.wahlzeit.services.OfyService;
 import org.wahlzeit.testEnvironmentProvider.LocalDatastoreServiceTestConfigProvider;
 import org.wahlzeit.testEnvironmentProvider.RegisteredOfyEnvironmentProvider;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test class for {@link Guest}.
@@ -59,4 +61,20 @@ public class GuestTest {
 	protected void testGetGuestFromUserManager(String name) {
 		assertNotNull(UserManager.getInstance().getClientById(name));
 	}
+
+	@Test
+	public void testGuestIsNotPersisted() {
+		ObjectifyService.run(new Work<Void>() {
+			@Override
+			public Void run() {
+				Guest guest = new Guest();
+				guest.addPraisedPhotoId(new PhotoId(1));
+				UserManager.getInstance().saveClient(guest);
+				assertTrue(guest.isEphemeral());
+				assertNotNull(UserManager.getInstance().getClientById(guest.getId()));
+				assertTrue(OfyService.ofy().load().type(Guest.class).list().isEmpty());
+				return null;
+			}
+		});
+	}
 }
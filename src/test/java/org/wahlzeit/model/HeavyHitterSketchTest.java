@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the HeavyHitterSketch class.
+ */
+public class HeavyHitterSketchTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testCounts() {
+		HeavyHitterSketch sketch = new HeavyHitterSketch(2);
+		sketch.add(1, 5);
+		sketch.add(2, 3);
+		sketch.add(1, 2);
+		assertEquals(7, sketch.getCount(1));
+		assertEquals(0, sketch.getError(1));
+
+		sketch.add(3, 1);
+		assertEquals(0, sketch.getCount(2));
+		assertEquals(4, sketch.getCount(3));
+		assertEquals(3, sketch.getError(3));
+		assertEquals(2, sketch.size());
+		assertEquals(0, sketch.getCount(1000));
+
+		sketch.clear();
+		assertEquals(0, sketch.size());
+		assertEquals(0, sketch.getCount(1));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testHeavyHittersAreKept() {
+		HeavyHitterSketch sketch = new HeavyHitterSketch(10);
+		int[] weights = new int[1010];
+		Random random = new Random(7);
+		for (int i = 0; i < 10000; i++) {
+			int id = (i % 2 == 0) ? 1 + random.nextInt(3) : 10 + random.nextInt(1000);
+			sketch.add(id, 1);
+			weights[id]++;
+		}
+
+		Set<Integer> ids = new HashSet<Integer>();
+		for (int i = 0; i < sketch.size(); i++) {
+			ids.add(sketch.getId(i));
+		}
+		assertTrue(ids.contains(1) && ids.contains(2) && ids.contains(3));
+		for (int id : ids) {
+			assertTrue(sketch.getCount(id) - sketch.getError(id) <= weights[id]);
+			assertTrue(sketch.getCount(id) >= weights[id]);
+		}
+	}
+
+}
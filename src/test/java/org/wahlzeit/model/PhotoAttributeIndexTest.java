@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoAttributeIndex class.
+ */
+public class PhotoAttributeIndexTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testOwners() {
+		PhotoAttributeIndex index = new PhotoAttributeIndex();
+		Photo first = TestPhotos.createPhoto("alice", "");
+		Photo second = TestPhotos.createPhoto("alice", "");
+		Photo third = TestPhotos.createPhoto("bob", "");
+		index.update(first);
+		index.update(second);
+		index.update(third);
+		index.update(third);
+
+		assertEquals(new HashSet<PhotoId>(Arrays.asList(first.getId(), second.getId())), index.getPhotoIdsOfOwner("alice"));
+		assertEquals(1, index.getNoPhotosOfOwner("bob"));
+		assertTrue(index.getPhotoIdsOfOwner("carol").isEmpty());
+
+		second.ownerId = "bob";
+		index.update(second);
+		assertEquals(1, index.getNoPhotosOfOwner("alice"));
+		assertEquals(2, index.getNoPhotosOfOwner("bob"));
+
+		index.remove(first.getId());
+		assertEquals(0, index.getNoPhotosOfOwner("alice"));
+		assertFalse(index.ownerPhotoIds.containsKey("alice"));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testStatuses() {
+		PhotoAttributeIndex index = new PhotoAttributeIndex();
+		Photo visible = TestPhotos.createPhoto("alice", "");
+		Photo flagged = TestPhotos.createPhoto("alice", "");
+		flagged.status = PhotoStatus.FLAGGED;
+		index.update(visible);
+		index.update(flagged);
+
+		assertEquals(1, index.getNoPhotosWithStatus(PhotoStatus.VISIBLE));
+		assertTrue(index.getPhotoIdsWithStatus(PhotoStatus.FLAGGED).contains(flagged.getId()));
+		assertEquals(2, index.getPhotoIdsWithStatus(PhotoStatus.VISIBLE, PhotoStatus.FLAGGED).size());
+
+		flagged.status = PhotoStatus.MODERATED;
+		index.update(flagged);
+		assertEquals(0, index.getNoPhotosWithStatus(PhotoStatus.FLAGGED));
+		assertEquals(1, index.getNoPhotosWithStatus(PhotoStatus.MODERATED));
+
+		index.remove(flagged.getId());
+		index.remove(flagged.getId());
+		assertEquals(0, index.getNoPhotosWithStatus(PhotoStatus.MODERATED));
+		assertTrue(index.getPhotoIdsWithStatus().isEmpty());
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for the PhotoDerivativeManager class.
+ */
+public class PhotoDerivativeManagerTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testSnapWidth() {
+		assertEquals(160, PhotoDerivativeManager.snapWidth(1));
+		assertEquals(320, PhotoDerivativeManager.snapWidth(320));
+		assertEquals(420, PhotoDerivativeManager.snapWidth(321));
+		assertEquals(840, PhotoDerivativeManager.snapWidth(5000));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testGetSourceSize() {
+		Photo photo = new Photo(new PhotoId(1));
+		photo.setWidthAndHeight(1000, 1000);
+
+		// square photos are limited by their width: medium is 420 wide, large 630 and extra large 840
+		assertEquals(PhotoSize.THUMB, PhotoDerivativeManager.getSourceSize(photo, 100));
+		assertEquals(PhotoSize.MEDIUM, PhotoDerivativeManager.getSourceSize(photo, 420));
+		assertEquals(PhotoSize.LARGE, PhotoDerivativeManager.getSourceSize(photo, 480));
+		assertEquals(PhotoSize.EXTRA_LARGE, PhotoDerivativeManager.getSourceSize(photo, 840));
+
+		photo.setWidthAndHeight(500, 500);
+		assertEquals(PhotoSize.MEDIUM, PhotoDerivativeManager.getSourceSize(photo, 840));
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoEventBus class.
+ */
+public class PhotoEventBusTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testEventsAreFilteredAndCoalesced() throws InterruptedException {
+		PhotoEventBus bus = new PhotoEventBus(16);
+		Photo first = new Photo(new PhotoId(1));
+		Photo second = new Photo(new PhotoId(2));
+		Photo other = new Photo(new PhotoId(3));
+		Set<PhotoId> ids = new HashSet<PhotoId>(Arrays.asList(first.getId(), second.getId()));
+		PhotoEventBus.Subscription subscription = bus.subscribe(ids);
+
+		first.addToPraise(4);
+		bus.publish(first);
+		bus.publish(second);
+		bus.publish(other);
+		first.addToPraise(8);
+		bus.publish(first);
+
+		List<PhotoEvent> events = new ArrayList<PhotoEvent>(subscription.awaitEvents(0));
+		assertEquals(2, events.size());
+		assertEquals(second.getId(), events.get(0).getPhotoId());
+		assertEquals(first.getId(), events.get(1).getPhotoId());
+		assertEquals(22.0 / 3, events.get(1).getPraise(), 0.0);
+		assertEquals(3, events.get(1).getNoVotes());
+		assertEquals(bus.getNextSequence(), subscription.getSequence());
+
+		assertTrue(subscription.awaitEvents(1).isEmpty());
+		assertFalse(subscription.isOverrun());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testSlowSubscriberIsOverrun() throws InterruptedException {
+		PhotoEventBus bus = new PhotoEventBus(4);
+		Photo photo = new Photo(new PhotoId(1));
+		PhotoEventBus.Subscription subscription = bus.subscribe(new HashSet<PhotoId>(Arrays.asList(photo.getId())));
+
+		for (int i = 0; i < 4; i++) {
+			bus.publish(photo);
+		}
+		assertEquals(1, subscription.awaitEvents(0).size());
+		assertFalse(subscription.isOverrun());
+
+		for (int i = 0; i < 5; i++) {
+			bus.publish(photo);
+		}
+		assertTrue(subscription.awaitEvents(0).isEmpty());
+		assertTrue(subscription.isOverrun());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testResumeFromSequence() throws InterruptedException {
+		PhotoEventBus bus = new PhotoEventBus(8);
+		Photo photo = new Photo(new PhotoId(1));
+		Set<PhotoId> ids = new HashSet<PhotoId>(Arrays.asList(photo.getId()));
+		bus.publish(photo);
+		long resumeAt = bus.getNextSequence();
+		photo.setStatus(PhotoStatus.FLAGGED);
+		bus.publish(photo);
+
+		List<PhotoEvent> events = new ArrayList<PhotoEvent>(bus.subscribe(ids, resumeAt).awaitEvents(0));
+		assertEquals(1, events.size());
+		assertEquals(resumeAt, events.get(0).getSequence());
+		assertEquals(PhotoStatus.FLAGGED, events.get(0).getStatus());
+
+		PhotoEventBus.Subscription fromTheFuture = bus.subscribe(ids, bus.getNextSequence() + 1);
+		fromTheFuture.awaitEvents(0);
+		assertTrue(fromTheFuture.isOverrun());
+	}
+
+}
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -84,4 +85,22 @@ public class PhotoFilterTest {
 		assertTrue(photoFilter.processedPhotoIds.isEmpty());
 	}
 
+	/**
+	 *
+	 */
+	@Test
+	public void testProcessedPhotoIsNoLongerSkipped() {
+		Photo photo = new Photo(PhotoId.getNextId());
+		photoFilter.addSkippedPhotoId(photo.getId());
+		assertTrue(photoFilter.getSkippedPhotoIds().contains(photo.getId()));
+		assertFalse(photoFilter.isProcessedPhotoId(photo.getId()));
+		assertTrue(photoFilter.isDirty());
+
+		photoFilter.resetDirty();
+		photoFilter.addProcessedPhoto(photo);
+		assertTrue(photoFilter.isProcessedPhotoId(photo.getId()));
+		assertFalse(photoFilter.getSkippedPhotoIds().contains(photo.getId()));
+		assertTrue(photoFilter.isDirty());
+	}
+
 }
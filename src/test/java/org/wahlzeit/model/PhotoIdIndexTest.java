@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoIdIndex class.
+ */
+public class PhotoIdIndexTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testAddAndRemove() {
+		PhotoIdIndex index = new PhotoIdIndex();
+		PhotoId[] ids = new PhotoId[100];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = PhotoId.getNextId();
+			assertTrue(index.add(ids[i]));
+		}
+		assertFalse(index.add(ids[0]));
+		assertEquals(100, index.size());
+
+		PhotoIdSet removed = new PhotoIdSet();
+		for (int i = 0; i < ids.length; i += 2) {
+			assertTrue(index.remove(ids[i]));
+			removed.add(ids[i]);
+		}
+		assertFalse(index.remove(ids[0]));
+		assertEquals(50, index.size());
+
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			PhotoId id = index.getRandomId(random);
+			assertTrue(index.contains(id));
+			assertFalse(removed.contains(id));
+		}
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testExcludedIdsAreNeverReturned() {
+		PhotoIdIndex index = new PhotoIdIndex();
+		PhotoIdSet excluded = new PhotoIdSet();
+		PhotoId eligible = null;
+		for (int i = 0; i < 1000; i++) {
+			PhotoId id = PhotoId.getNextId();
+			index.add(id);
+			if (i == 500) {
+				eligible = id;
+			} else {
+				excluded.add(id);
+			}
+		}
+
+		// almost everything is excluded, so this takes the select path
+		Random random = new Random(42);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(eligible, index.getRandomId(random, excluded));
+		}
+
+		excluded.add(eligible);
+		assertTrue(index.getRandomId(random, excluded).isNullId());
+		assertTrue(new PhotoIdIndex().getRandomId(random).isNullId());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testNextId() {
+		PhotoIdIndex index = new PhotoIdIndex();
+		PhotoId first = PhotoId.getNextId();
+		PhotoId.getNextId();
+		PhotoId third = PhotoId.getNextId();
+		index.add(first);
+		index.add(third);
+
+		assertEquals(first.asInt(), index.nextId(-5));
+		assertEquals(first.asInt(), index.nextId(first.asInt()));
+		assertEquals(third.asInt(), index.nextId(first.asInt() + 1));
+		assertEquals(-1, index.nextId(third.asInt() + 1));
+	}
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoIdSet class.
+ */
+public class PhotoIdSetTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testAddRemoveAndDirty() {
+		PhotoIdSet set = new PhotoIdSet();
+		PhotoId id = PhotoId.getNextId();
+		assertFalse(set.isDirty());
+
+		assertTrue(set.add(id));
+		assertFalse(set.add(id));
+		assertTrue(set.contains(id));
+		assertEquals(1, set.size());
+		assertTrue(set.isDirty());
+
+		set.resetDirty();
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertTrue(set.isDirty());
+
+		set.resetDirty();
+		assertFalse(set.remove(id));
+		set.clear();
+		assertFalse(set.isDirty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testSerializedFormIsCompact() throws Exception {
+		PhotoIdSet set = new PhotoIdSet();
+		List<PhotoId> ids = new ArrayList<PhotoId>();
+		for (int i = 0; i < 100; i++) {
+			PhotoId id = PhotoId.getNextId();
+			ids.add(id);
+			set.add(id);
+		}
+
+		byte[] bytes = serialize(set);
+		PhotoIdSet copy = (PhotoIdSet) new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+		assertEquals(100, copy.size());
+		for (PhotoId id : ids) {
+			assertTrue(copy.contains(id));
+		}
+		assertFalse(copy.isDirty());
+		assertTrue(bytes.length < 200);
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testPhotoFilterRoundTrip() throws Exception {
+		PhotoFilter filter = new PhotoFilter();
+		filter.setUserName("han");
+		filter.setTags(new Tags("star, wars"));
+		PhotoId processed = PhotoId.getNextId();
+		PhotoId skipped = PhotoId.getNextId();
+		filter.processedPhotoIds.add(processed);
+		filter.addSkippedPhotoId(skipped);
+		filter.displayablePhotoIds.add(PhotoId.getNextId());
+		assertTrue(filter.isDirty());
+
+		PhotoFilter copy = (PhotoFilter) new ObjectInputStream(new ByteArrayInputStream(serialize(filter))).readObject();
+		assertEquals("han", copy.getUserName());
+		assertEquals(filter.getTags().asString(), copy.getTags().asString());
+		assertEquals(processed, copy.processedPhotoIds.iterator().next());
+		assertEquals(skipped, copy.getSkippedPhotoIds().iterator().next());
+		assertTrue(copy.getDisplayablePhotoIds().isEmpty());
+		assertFalse(copy.isDirty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testVarInt() throws IOException {
+		int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE};
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		for (int value : values) {
+			PhotoIdSet.writeVarInt(out, value);
+		}
+		out.close();
+
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (int value : values) {
+			assertEquals(value, PhotoIdSet.readVarInt(in));
+		}
+	}
+
+	/**
+	 *
+	 */
+	protected byte[] serialize(Object object) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(result);
+		out.writeObject(object);
+		out.close();
+		return result.toByteArray();
+	}
+
+}
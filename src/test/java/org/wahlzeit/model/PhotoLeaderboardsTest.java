@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoLeaderboards class.
+ */
+public class PhotoLeaderboardsTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testRankings() {
+		PhotoLeaderboards leaderboards = new PhotoLeaderboards();
+		Photo flower = TestPhotos.createPhoto("han", "flower, garden");
+		flower.praiseSum = 3;
+		Photo tree = TestPhotos.createPhoto("han", "tree, garden");
+		tree.praiseSum = 6;
+		Photo sky = TestPhotos.createPhoto("leia", "sky");
+		sky.praiseSum = 9;
+		leaderboards.update(flower);
+		leaderboards.update(tree);
+		leaderboards.update(sky);
+
+		assertEquals(Arrays.asList(sky.getId(), tree.getId(), flower.getId()), leaderboards.getTopPhotoIds(10));
+		assertEquals(Arrays.asList(tree.getId(), flower.getId()), leaderboards.getTopPhotoIdsOfOwner("han", 10));
+		assertEquals(Arrays.asList(tree.getId(), flower.getId()), leaderboards.getTopPhotoIdsWithTag("Garden", 10));
+		assertEquals(1, leaderboards.getRankWithTag("garden", flower.getId()));
+		assertEquals(2, leaderboards.getRank(flower.getId()));
+
+		flower.praiseSum += 10;
+		leaderboards.update(flower);
+		assertEquals(0, leaderboards.getRank(flower.getId()));
+		assertEquals(flower.getId(), leaderboards.getTopPhotoIdsWithTag("garden", 1).get(0));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testUpdate() {
+		PhotoLeaderboards leaderboards = new PhotoLeaderboards();
+		Photo photo = TestPhotos.createPhoto("han", "flower, tree");
+		photo.praiseSum = 5;
+		leaderboards.update(photo);
+
+		photo.tags = new Tags("tree, sky");
+		photo.ownerId = "leia";
+		leaderboards.update(photo);
+		assertTrue(leaderboards.getTopPhotoIdsWithTag("flower", 10).isEmpty());
+		assertEquals(1, leaderboards.getTopPhotoIdsWithTag("sky", 10).size());
+		assertTrue(leaderboards.getTopPhotoIdsOfOwner("han", 10).isEmpty());
+		assertTrue(leaderboards.ownerRankings.containsKey("leia"));
+
+		photo.status = PhotoStatus.INVISIBLE;
+		leaderboards.update(photo);
+		assertEquals(0, leaderboards.getNoPhotos());
+		assertTrue(leaderboards.tagRankings.isEmpty());
+		assertEquals(Arrays.asList(photo.getId()), leaderboards.getTopPhotoIdsOfOwner("leia", 10));
+
+		leaderboards.remove(photo.getId());
+		assertTrue(leaderboards.ownerRankings.isEmpty());
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import com.googlecode.objectify.ObjectifyService;
+import com.googlecode.objectify.Work;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.wahlzeit.services.ObjectManager;
+import org.wahlzeit.services.OfyService;
+import org.wahlzeit.testEnvironmentProvider.LocalDatastoreServiceTestConfigProvider;
+import org.wahlzeit.testEnvironmentProvider.RegisteredOfyEnvironmentProvider;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoManager class.
+ */
+public class PhotoManagerTest {
+
+	@ClassRule
+	public static RuleChain ruleChain = RuleChain.
+			outerRule(new LocalDatastoreServiceTestConfigProvider()).
+			around(new RegisteredOfyEnvironmentProvider());
+
+	/**
+	 *
+	 */
+	@Test
+	public void testUpdateTagsWritesDifference() {
+		ObjectifyService.run(new Work<Void>() {
+			@Override
+			public Void run() {
+				PhotoManager photoManager = PhotoManager.getInstance();
+				Photo photo = new Photo(PhotoId.getNextId());
+				photo.setOwnerId("han");
+				photo.setTags(new Tags("flower, tree"));
+				assertNull(photo.getSavedTags());
+
+				photoManager.updateTags(photo);
+				assertEquals(asSet("un:han", "tg:han", "tg:flower", "tg:tree"), getSavedTexts(photo));
+
+				Tag flower = photo.getSavedTags().get("tg:flower");
+				photo.setTags(new Tags("flower, sky"));
+				photoManager.updateTags(photo);
+				assertEquals(asSet("un:han", "tg:han", "tg:flower", "tg:sky"), getSavedTexts(photo));
+				assertSame(flower, photo.getSavedTags().get("tg:flower"));
+
+				Photo loadedPhoto = new Photo(photo.getId());
+				loadedPhoto.setTags(new Tags("flower"));
+				photoManager.updateTags(loadedPhoto);
+				assertEquals(asSet("tg:flower"), getSavedTexts(loadedPhoto));
+				return null;
+			}
+		});
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testFindPhotosByOwnerAndStatus() {
+		PhotoManager photoManager = PhotoManager.getInstance();
+		Photo photo = new Photo(PhotoId.getNextId());
+		photo.setOwnerId("leia");
+		photoManager.doAddPhoto(photo);
+		assertTrue(photoManager.findPhotosByOwner("leia").contains(photo));
+
+		photo.setOwnerId("luke");
+		assertFalse(photoManager.findPhotosByOwner("leia").contains(photo));
+		assertTrue(photoManager.findPhotosByOwner("luke").contains(photo));
+
+		PhotoAttributeIndex index = photoManager.getPhotoAttributeIndex();
+		photo.setStatus(PhotoStatus.FLAGGED);
+		assertTrue(index.getPhotoIdsWithStatus(PhotoStatus.FLAGGED, PhotoStatus.FLAGGED2).contains(photo.getId()));
+		assertFalse(index.getPhotoIdsWithStatus(PhotoStatus.VISIBLE).contains(photo.getId()));
+
+		photo.setStatus(PhotoStatus.DELETED);
+		assertFalse(index.getPhotoIdsWithStatus(PhotoStatus.FLAGGED).contains(photo.getId()));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testPhotoChangedUpdatesAllIndexes() {
+		PhotoManager photoManager = PhotoManager.getInstance();
+		Photo photo = new Photo(PhotoId.getNextId());
+		photo.setTags(new Tags("quokka"));
+		photoManager.doAddPhoto(photo);
+		assertTrue(photoManager.getVisiblePhotoIds().contains(photo.getId()));
+		assertEquals(asSet("tg:quokka"), photoManager.getPhotoTagIndex().getConditions(photo.getId()));
+
+		photo.setTags(new Tags("wombat"));
+		assertEquals(0, photoManager.getTagTrie().getCount("quokka"));
+		assertEquals(1, photoManager.getTagTrie().getCount("wombat"));
+		assertEquals(Arrays.asList(photo.getId()), photoManager.getPhotoSearchIndex().search("wombat", 10));
+		PhotoLeaderboards leaderboards = photoManager.getPhotoLeaderboards();
+		assertEquals(Arrays.asList(photo.getId()), leaderboards.getTopPhotoIdsWithTag("wombat", 10));
+
+		photo.setStatus(PhotoStatus.DELETED);
+		assertFalse(photoManager.getVisiblePhotoIds().contains(photo.getId()));
+		assertTrue(photoManager.getPhotoSearchIndex().search("wombat", 10).isEmpty());
+		assertTrue(leaderboards.getTopPhotoIdsWithTag("wombat", 10).isEmpty());
+	}
+
+	/**
+	 * Returns the texts of the tags of the photo in the datastore, checking that the photo knows them.
+	 */
+	protected Set<String> getSavedTexts(Photo photo) {
+		Set<String> result = new HashSet<String>();
+		for (Tag tag : OfyService.ofy().load().type(Tag.class).ancestor(ObjectManager.applicationRootKey).
+				filter(Tag.PHOTO_ID, photo.getId().asString()).list()) {
+			result.add(tag.getText());
+		}
+		assertEquals(result, photo.getSavedTags().keySet());
+		return result;
+	}
+
+	/**
+	 *
+	 */
+	protected Set<String> asSet(String... texts) {
+		Set<String> result = new HashSet<String>();
+		for (String text : texts) {
+			result.add(text);
+		}
+		return result;
+	}
+
+}
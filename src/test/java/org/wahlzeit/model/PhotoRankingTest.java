@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoRanking class.
+ */
+public class PhotoRankingTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testOrder() {
+		PhotoRanking ranking = new PhotoRanking();
+		PhotoId first = PhotoId.getNextId();
+		PhotoId second = PhotoId.getNextId();
+		PhotoId third = PhotoId.getNextId();
+		ranking.update(third, 5.0);
+		ranking.update(second, 7.5);
+		ranking.update(first, 5.0);
+
+		assertEquals(Arrays.asList(second, first, third), ranking.getTopPhotoIds(10));
+		assertEquals(Arrays.asList(first, third), ranking.getPhotoIds(1, 10));
+		assertEquals(Arrays.asList(second), ranking.getTopPhotoIds(1));
+		assertEquals(2, ranking.getRank(third));
+		assertEquals(first, ranking.getPhotoId(1));
+		assertNull(ranking.getPhotoId(3));
+
+		ranking.update(third, 9.0);
+		assertEquals(0, ranking.getRank(third));
+		assertEquals(Arrays.asList(third, second, first), ranking.getTopPhotoIds(Integer.MAX_VALUE));
+
+		ranking.remove(second);
+		ranking.remove(second);
+		assertFalse(ranking.contains(second));
+		assertEquals(-1, ranking.getRank(second));
+		assertEquals(2, ranking.size());
+		assertTrue(ranking.getPhotoIds(5, 10).isEmpty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testRandomUpdates() {
+		PhotoRanking ranking = new PhotoRanking();
+		final Map<PhotoId, Double> praises = new HashMap<PhotoId, Double>();
+		List<PhotoId> ids = new ArrayList<PhotoId>();
+		for (int i = 0; i < 200; i++) {
+			ids.add(PhotoId.getNextId());
+		}
+
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			PhotoId id = ids.get(random.nextInt(ids.size()));
+			if (random.nextInt(5) == 0) {
+				ranking.remove(id);
+				praises.remove(id);
+			} else {
+				double praise = random.nextInt(20) / 2.0;
+				ranking.update(id, praise);
+				praises.put(id, praise);
+			}
+		}
+
+		List<PhotoId> expected = new ArrayList<PhotoId>(praises.keySet());
+		Collections.sort(expected, new Comparator<PhotoId>() {
+			public int compare(PhotoId a, PhotoId b) {
+				int result = Double.compare(praises.get(b), praises.get(a));
+				return (result != 0) ? result : a.asInt() - b.asInt();
+			}
+		});
+
+		assertEquals(expected, ranking.getTopPhotoIds(expected.size()));
+		assertEquals(expected.size(), PhotoRanking.getSize(ranking.root));
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(i, ranking.getRank(expected.get(i)));
+			assertEquals(expected.get(i), ranking.getPhotoId(i));
+		}
+		assertEquals(expected.subList(10, 20), ranking.getPhotoIds(10, 10));
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoRecommender class.
+ */
+public class PhotoRecommenderTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testWeights() {
+		PhotoRecommender recommender = new PhotoRecommender();
+		long now = System.currentTimeMillis();
+		Photo fresh = TestPhotos.createPhoto("flower");
+		fresh.creationTime = now;
+		Photo old = TestPhotos.createPhoto("flower");
+		old.creationTime = now - 2 * PhotoRecommender.FRESH_PERIOD;
+		recommender.update(fresh, now);
+		recommender.update(old, now);
+		assertEquals(10.0, recommender.getWeight(fresh.getId()), 1e-9);
+		assertEquals(5.0, recommender.getWeight(old.getId()), 1e-9);
+
+		old.noVotes = 4;
+		recommender.update(old, now);
+		assertEquals(2.0, recommender.getWeight(old.getId()), 1e-9);
+
+		recommender.update(fresh, now + PhotoRecommender.FRESH_PERIOD);
+		assertEquals(5.0, recommender.getWeight(fresh.getId()), 1e-9);
+
+		old.status = PhotoStatus.INVISIBLE;
+		recommender.update(old, now);
+		assertEquals(0, recommender.getWeight(old.getId()), 0);
+		assertEquals(1, recommender.size());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testRecommendation() {
+		PhotoRecommender recommender = new PhotoRecommender();
+		long now = System.currentTimeMillis() + 2 * PhotoRecommender.FRESH_PERIOD;
+		Photo flower = TestPhotos.createPhoto("flower");
+		flower.creationTime = 0;
+		Photo tree = TestPhotos.createPhoto("tree");
+		tree.creationTime = 0;
+		Photo praised = TestPhotos.createPhoto("tree, sky");
+		praised.creationTime = 0;
+		recommender.update(flower, now);
+		recommender.update(tree, now);
+		recommender.update(praised, now);
+
+		PhotoIdSet praisedPhotoIds = new PhotoIdSet();
+		praisedPhotoIds.add(praised.getId());
+		Random random = new Random(42);
+		int noTrees = 0;
+		for (int i = 0; i < 1000; i++) {
+			PhotoId id = recommender.getRecommendedId(random, now, praisedPhotoIds, praisedPhotoIds);
+			assertTrue(id.equals(flower.getId()) || id.equals(tree.getId()));
+			noTrees += id.equals(tree.getId()) ? 1 : 0;
+		}
+		assertTrue(noTrees > 700 && noTrees < 870);
+
+		PhotoIdSet seen = new PhotoIdSet();
+		seen.add(flower.getId());
+		seen.add(tree.getId());
+		assertEquals(PhotoId.NULL_ID, recommender.getRecommendedId(random, now, null, seen, praisedPhotoIds));
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoSampler class.
+ */
+public class PhotoSamplerTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testWeights() {
+		PhotoSampler sampler = new PhotoSampler();
+		sampler.setWeight(3, 2.0);
+		sampler.setWeight(200, 1.5);
+		sampler.setWeight(7, 0.5);
+		assertEquals(3, sampler.size());
+		assertEquals(4.0, sampler.getTotalWeight(), 1e-9);
+		assertEquals(1.5, sampler.getWeight(200), 0);
+		assertEquals(0, sampler.getWeight(1000), 0);
+
+		sampler.setWeight(3, 0);
+		sampler.setWeight(1000, 0);
+		assertEquals(2, sampler.size());
+		assertEquals(2.0, sampler.getTotalWeight(), 1e-9);
+	}
+
+	/**
+	 *
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeWeight() {
+		new PhotoSampler().setWeight(1, -1);
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testSample() {
+		PhotoSampler sampler = new PhotoSampler();
+		assertEquals(-1, sampler.sample(new Random(1)));
+
+		sampler.setWeight(1, 1);
+		sampler.setWeight(2, 3);
+		sampler.setWeight(100, 6);
+		sampler.setWeight(50, 4);
+		sampler.setWeight(50, 0);
+
+		int[] counts = new int[101];
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			counts[sampler.sample(random)]++;
+		}
+		assertEquals(0, counts[50]);
+		assertTrue(Math.abs(counts[1] - 1000) < 150);
+		assertTrue(Math.abs(counts[2] - 3000) < 250);
+		assertTrue(Math.abs(counts[100] - 6000) < 250);
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoSearchIndex class.
+ */
+public class PhotoSearchIndexTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testTokenize() {
+		List<String> tokens = new ArrayList<String>();
+		PhotoSearchIndex.tokenize(tokens, " Sci-Fi,Space  Ships ,, ");
+		assertEquals(Arrays.asList("scifi", "space", "ships"), tokens);
+
+		tokens.clear();
+		PhotoSearchIndex.tokenize(tokens, null);
+		PhotoSearchIndex.tokenize(tokens, " - ");
+		assertTrue(tokens.isEmpty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testSearch() {
+		PhotoSearchIndex index = new PhotoSearchIndex();
+		Photo flower = TestPhotos.createPhoto("flower, garden, summer, red, tulip");
+		Photo flowers = TestPhotos.createPhoto("flower, tree");
+		Photo tree = TestPhotos.createPhoto("tree, garden");
+		index.update(flower);
+		index.update(flowers);
+		index.update(tree);
+		assertEquals(3, index.size());
+
+		assertEquals(Arrays.asList(flowers.getId(), flower.getId()), index.search("Flower", 10));
+		assertEquals(Arrays.asList(flowers.getId()), index.search("flower", 1));
+		assertEquals(tree.getId(), index.search("garden tree", 10).get(0));
+		assertEquals(3, index.search("garden, tree flower", 10).size());
+		assertTrue(index.search("cactus", 10).isEmpty());
+		assertTrue(index.search("", 10).isEmpty());
+		assertTrue(index.search("flower", 0).isEmpty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testUpdate() {
+		PhotoSearchIndex index = new PhotoSearchIndex();
+		Photo photo = TestPhotos.createPhoto("flower, tree");
+		index.update(photo);
+		index.update(photo);
+		assertEquals(1, index.size());
+		assertEquals(1, index.postings.get("flower").size);
+
+		photo.setTags(new Tags("cactus"));
+		index.update(photo);
+		assertTrue(index.search("flower", 10).isEmpty());
+		assertEquals(Arrays.asList(photo.getId()), index.search("cactus", 10));
+
+		photo.setStatus(PhotoStatus.DELETED);
+		index.update(photo);
+		assertEquals(0, index.size());
+		assertTrue(index.search("cactus", 10).isEmpty());
+
+		photo.setStatus(PhotoStatus.VISIBLE);
+		index.update(photo);
+		index.remove(photo.getId());
+		assertEquals(0, index.size());
+		assertEquals(0, index.totalLength);
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testUnchangedTextIsNotReindexed() {
+		PhotoSearchIndex index = new PhotoSearchIndex();
+		Photo photo = TestPhotos.createPhoto("flower, tree");
+		index.update(photo);
+		PhotoSearchIndex.Document document = index.documents[photo.getId().asInt()];
+
+		photo.praiseSum += 5;
+		photo.noVotes++;
+		index.update(photo);
+		assertSame(document, index.documents[photo.getId().asInt()]);
+
+		photo.tags = new Tags("flower, sky");
+		index.update(photo);
+		assertNotSame(document, index.documents[photo.getId().asInt()]);
+		assertEquals(Arrays.asList(photo.getId()), index.search("sky", 10));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testRemoveKeepsPositions() {
+		PhotoSearchIndex index = new PhotoSearchIndex();
+		List<Photo> photos = new ArrayList<Photo>();
+		for (int i = 0; i < 20; i++) {
+			Photo photo = TestPhotos.createPhoto("flower, " + ((i % 2 == 0) ? "even" : "odd"));
+			photos.add(photo);
+			index.update(photo);
+		}
+
+		// remove from the front, the middle and the end of the posting lists
+		for (int i : new int[] { 0, 9, 19, 4, 13 }) {
+			index.remove(photos.get(i).getId());
+		}
+		assertEquals(15, index.size());
+		assertEquals(15, index.search("flower", 100).size());
+		assertEquals(8, index.search("even", 100).size());
+		assertEquals(7, index.search("odd", 100).size());
+
+		for (Photo photo : photos) {
+			index.remove(photo.getId());
+		}
+		assertEquals(0, index.size());
+		assertTrue(index.postings.isEmpty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testSummaryBoilerplateIsNotIndexed() {
+		PhotoSearchIndex index = new PhotoSearchIndex();
+		Photo photo = TestPhotos.createPhoto("flower");
+		photo.ownerId = "Tulip Lover";
+		index.update(photo);
+
+		assertEquals(Arrays.asList(photo.getId()), index.search("tulip", 10));
+		assertTrue(index.search("photo by foto von", 10).isEmpty());
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoSprite class.
+ */
+public class PhotoSpriteTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testLayout() {
+		List<PhotoId> ids = new ArrayList<PhotoId>();
+		for (int i = 1; i <= PhotoSprite.NO_COLUMNS + 2; i++) {
+			ids.add(new PhotoId(i));
+		}
+		PhotoSprite sprite = new PhotoSprite(ids);
+
+		assertEquals(PhotoSprite.NO_COLUMNS * PhotoSprite.CELL_WIDTH, sprite.getWidth());
+		assertEquals(2 * PhotoSprite.CELL_HEIGHT, sprite.getHeight());
+
+		assertEquals(0, sprite.getXOffset(ids.get(0)));
+		assertEquals(0, sprite.getYOffset(ids.get(0)));
+		assertEquals(2 * PhotoSprite.CELL_WIDTH, sprite.getXOffset(ids.get(2)));
+		assertEquals(0, sprite.getYOffset(ids.get(2)));
+		assertEquals(PhotoSprite.CELL_WIDTH, sprite.getXOffset(ids.get(PhotoSprite.NO_COLUMNS + 1)));
+		assertEquals(PhotoSprite.CELL_HEIGHT, sprite.getYOffset(ids.get(PhotoSprite.NO_COLUMNS + 1)));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testKey() {
+		PhotoSprite sprite = new PhotoSprite(Arrays.asList(new PhotoId(3), new PhotoId(1)));
+		assertEquals(new PhotoId(3).asString() + "," + new PhotoId(1).asString(), sprite.getKey());
+		assertTrue(sprite.isWorthwhile());
+
+		PhotoSprite single = new PhotoSprite(Collections.singletonList(new PhotoId(1)));
+		assertFalse(single.isWorthwhile());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testGetFromKeyIgnoresInvalidIds() {
+		PhotoSprite sprite = PhotoSprite.getFromKey("garbage,,");
+		assertEquals(0, sprite.getNoPhotos());
+		assertEquals("", sprite.getKey());
+	}
+
+	/**
+	 *
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownPhotoOffset() {
+		PhotoSprite sprite = new PhotoSprite(Collections.singletonList(new PhotoId(1)));
+		sprite.getXOffset(new PhotoId(2));
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the PhotoTagIndex class.
+ */
+public class PhotoTagIndexTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testAndOr() {
+		PhotoTagIndex index = new PhotoTagIndex(new PhotoTagCollector());
+		Photo red = TestPhotos.createPhoto("han", "flower, red");
+		Photo blue = TestPhotos.createPhoto("han", "flower, blue");
+		Photo other = TestPhotos.createPhoto("leia", "red");
+		index.update(red);
+		index.update(blue);
+		index.update(other);
+
+		PhotoIdSet result = index.getPhotoIdsMatchingAll(Arrays.asList("un:han", "tg:red"));
+		assertEquals(1, result.size());
+		assertTrue(result.contains(red.getId()));
+
+		result = index.getPhotoIdsMatchingAny(Arrays.asList("tg:blue", "tg:red"));
+		assertEquals(3, result.size());
+
+		assertEquals(2, index.getPhotoIdsMatchingAll(Collections.singletonList("tg:han")).size());
+		assertTrue(index.getPhotoIdsMatchingAll(Arrays.asList("tg:red", "tg:unknown")).isEmpty());
+		assertTrue(index.getPhotoIdsMatchingAll(Collections.<String>emptyList()).isEmpty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testUpdateAndRemove() {
+		PhotoTagIndex index = new PhotoTagIndex(new PhotoTagCollector());
+		Photo photo = TestPhotos.createPhoto("han", "flower");
+		index.update(photo);
+		assertTrue(index.getConditions(photo.getId()).contains("tg:flower"));
+
+		photo.setTags(new Tags("tree"));
+		photo.setOwnerId("leia");
+		index.update(photo);
+		assertTrue(index.getPhotoIdsMatchingAny(Arrays.asList("tg:flower", "un:han")).isEmpty());
+		assertTrue(index.getPhotoIdsMatchingAll(Arrays.asList("tg:tree", "un:leia")).contains(photo.getId()));
+
+		index.remove(photo.getId());
+		assertTrue(index.getConditions(photo.getId()).isEmpty());
+		assertFalse(index.getPhotoIdsMatchingAny(Arrays.asList("tg:tree")).contains(photo.getId()));
+	}
+
+}
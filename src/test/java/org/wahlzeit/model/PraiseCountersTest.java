@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for the PraiseCounters class.
+ */
+public class PraiseCountersTest {
+
+	protected static final long NOW = 1000 * PraiseCounters.HOUR;
+
+	/**
+	 *
+	 */
+	@Test
+	public void testHourlyPraise() {
+		PraiseCounters counters = new PraiseCounters();
+		counters.add(1, 5, NOW);
+		counters.add(1, 3, NOW + 10 * PraiseCounters.MINUTE);
+		counters.add(2, 7, NOW);
+
+		assertEquals(8, counters.getHourlyPraise(1, NOW + 10 * PraiseCounters.MINUTE));
+		assertEquals(3, counters.getHourlyPraise(1, NOW + 60 * PraiseCounters.MINUTE));
+		assertEquals(0, counters.getHourlyPraise(1, NOW + 70 * PraiseCounters.MINUTE));
+		assertEquals(7, counters.getHourlyPraise(2, NOW + 59 * PraiseCounters.MINUTE));
+		assertEquals(0, counters.getHourlyPraise(3, NOW));
+		assertEquals(0, counters.getHourlyPraise(1000, NOW));
+
+		counters.add(1, 4, NOW + 65 * PraiseCounters.MINUTE);
+		assertEquals(7, counters.getHourlyPraise(1, NOW + 65 * PraiseCounters.MINUTE));
+		counters.add(1, 2, NOW + 200 * PraiseCounters.MINUTE);
+		assertEquals(2, counters.getHourlyPraise(1, NOW + 200 * PraiseCounters.MINUTE));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testDailyPraise() {
+		PraiseCounters counters = new PraiseCounters();
+		counters.add(100, 5, NOW);
+		counters.add(100, 3, NOW + 5 * PraiseCounters.HOUR);
+
+		assertEquals(8, counters.getDailyPraise(100, NOW + 23 * PraiseCounters.HOUR));
+		assertEquals(3, counters.getDailyPraise(100, NOW + 24 * PraiseCounters.HOUR));
+		assertEquals(0, counters.getDailyPraise(100, NOW + 30 * PraiseCounters.HOUR));
+		assertEquals(0, counters.getHourlyPraise(100, NOW + 2 * PraiseCounters.HOUR));
+	}
+
+}
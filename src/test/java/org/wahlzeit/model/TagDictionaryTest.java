@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the TagDictionary class.
+ */
+public class TagDictionaryTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testPrefixLookup() {
+		TagDictionary dictionary = new TagDictionary(Arrays.asList("flow", "flower", "flowers", "fly", "tree"));
+		assertEquals(5, dictionary.size());
+
+		assertEquals(Arrays.asList("flow", "flower", "flowers"), dictionary.getTagsWithPrefix("flow"));
+		assertEquals(Arrays.asList("flower"), dictionary.getTagsWithPrefix("flowe", 1));
+		assertEquals(Arrays.asList("tree"), dictionary.getTagsWithPrefix("t"));
+		assertTrue(dictionary.getTagsWithPrefix("a").isEmpty());
+		assertTrue(dictionary.getTagsWithPrefix("z").isEmpty());
+		assertEquals(5, dictionary.getTagsWithPrefix("").size());
+
+		assertTrue(dictionary.contains("fly"));
+		assertFalse(dictionary.contains("flo"));
+		assertTrue(TagDictionary.EMPTY_DICTIONARY.getTagsWithPrefix("").isEmpty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testPrefixLookupAcrossBlocks() {
+		List<String> tags = new ArrayList<String>();
+		for (int i = 1000; i < 1100; i++) {
+			tags.add("tag" + i);
+		}
+		TagDictionary dictionary = new TagDictionary(tags);
+
+		assertTrue(dictionary.getDataLength() < 4 * tags.size()); // vs. 7 chars per tag
+		assertEquals(tags, dictionary.getTagsWithPrefix("tag"));
+		assertEquals(tags.subList(40, 50), dictionary.getTagsWithPrefix("tag104"));
+		for (String tag : tags) {
+			assertTrue(dictionary.contains(tag));
+		}
+	}
+
+	/**
+	 *
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsortedTags() {
+		new TagDictionary(Arrays.asList("tree", "flower"));
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the TagQuery class.
+ */
+public class TagQueryTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testParse() {
+		assertEquals("(flower OR tree*) AND NOT winter", TagQuery.parse("(flower | Tree*) -winter").asPlanString());
+		assertEquals("a OR (b AND c)", TagQuery.parse("a OR b, c").asPlanString());
+		assertEquals("NOT a AND b", TagQuery.parse("NOT a b").asPlanString());
+		assertEquals("a", TagQuery.parse("NOT NOT a").asPlanString());
+		assertEquals("scifi", TagQuery.parse("sci-fi").asPlanString());
+		assertTrue(TagQuery.parse("  ").isEmpty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testIsQuery() {
+		assertFalse(TagQuery.isQuery("flower, tree"));
+		assertFalse(TagQuery.isQuery("sci-fi"));
+		assertTrue(TagQuery.isQuery("flow*"));
+		assertTrue(TagQuery.isQuery("flower OR tree"));
+		assertTrue(TagQuery.isQuery("-winter"));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testMalformedQueries() {
+		String[] queries = {"(a", "a)", "a OR", "NOT", "*", "a AND OR b"};
+		for (String query : queries) {
+			try {
+				TagQuery.parse(query);
+				throw new AssertionError("parsed " + query);
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testDepthLimit() {
+		StringBuilder query = new StringBuilder();
+		for (int i = 0; i < TagQuery.MAX_DEPTH; i++) {
+			query.append('(');
+		}
+		query.append('a');
+		for (int i = 0; i < TagQuery.MAX_DEPTH; i++) {
+			query.append(')');
+		}
+		assertEquals("a", TagQuery.parse(query.toString()).asPlanString());
+
+		try {
+			TagQuery.parse("(" + query + ")");
+			throw new AssertionError("parsed a query nested too deeply");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		StringBuilder deepQuery = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			deepQuery.append("( ");
+		}
+		try {
+			TagQuery.parse(deepQuery.toString());
+			throw new AssertionError("parsed a query nested too deeply");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		StringBuilder negations = new StringBuilder();
+		for (int i = 0; i < 20001; i++) {
+			negations.append("! ");
+		}
+		assertEquals("NOT a", TagQuery.parse(negations + "a").asPlanString());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testEvaluate() {
+		PhotoTagIndex index = new PhotoTagIndex(new PhotoTagCollector());
+		Photo flower = TestPhotos.createPhoto("flower, summer");
+		Photo flowers = TestPhotos.createPhoto("flowers, winter");
+		Photo tree = TestPhotos.createPhoto("tree, winter");
+		index.update(flower);
+		index.update(flowers);
+		index.update(tree);
+
+		PhotoIdSet result = index.getPhotoIdsMatching(TagQuery.parse("flow* AND NOT winter"));
+		assertEquals(1, result.size());
+		assertTrue(result.contains(flower.getId()));
+
+		assertEquals(3, index.getPhotoIdsMatching(TagQuery.parse("flow* OR tree")).size());
+		assertEquals(2, index.getPhotoIdsMatching(TagQuery.parse("NOT summer")).size());
+		assertEquals(1, index.getPhotoIdsMatching(TagQuery.parse("winter NOT (flowers OR summer)")).size());
+		assertTrue(index.getPhotoIdsMatching(TagQuery.parse("flower unknown")).isEmpty());
+		assertTrue(index.getPhotoIdsMatching(TagQuery.EMPTY_QUERY).isEmpty());
+
+		tree.setTags(new Tags("flowerpot"));
+		index.update(tree);
+		assertEquals(3, index.getPhotoIdsMatching(TagQuery.parse("flow*")).size());
+		assertTrue(index.getTagDictionary().contains("flowerpot"));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testTagsCriterion() {
+		PhotoFilter filter = new PhotoFilter();
+		filter.setTagsCriterion("star, wars");
+		assertEquals("star, wars", filter.getTagsCriterion());
+		assertTrue(filter.getTagQuery().isEmpty());
+
+		filter.setTagsCriterion("star* -wars");
+		assertEquals("star* -wars", filter.getTagsCriterion());
+		assertEquals(Tags.EMPTY_TAGS, filter.getTags());
+		assertTrue(filter.hasConditions());
+
+		filter.setTagsCriterion("(star");
+		assertEquals("star", filter.getTagsCriterion());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testTagsCriterionLengthLimit() {
+		PhotoFilter filter = new PhotoFilter();
+		StringBuilder criterion = new StringBuilder();
+		while (criterion.length() < PhotoFilter.MAX_TAGS_CRITERION_LENGTH) {
+			criterion.append('(');
+		}
+		filter.setTagsCriterion(criterion.toString());
+		assertTrue(filter.getTagQuery().isEmpty());
+
+		try {
+			filter.setTagsCriterion(criterion + "(");
+			throw new AssertionError("set a criterion that is too long");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the TagTrie class.
+ */
+public class TagTrieTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testTopTags() {
+		TagTrie trie = new TagTrie();
+		trie.update(TestPhotos.createPhoto("flower, flowers"));
+		trie.update(TestPhotos.createPhoto("flower, fly"));
+		trie.update(TestPhotos.createPhoto("flower, flowers, tree"));
+
+		Map<String, Integer> result = trie.getTopTags("fl", 10);
+		assertEquals(Arrays.asList("flower", "flowers", "fly"), new ArrayList<String>(result.keySet()));
+		assertEquals(Arrays.asList(3, 2, 1), new ArrayList<Integer>(result.values()));
+
+		assertEquals(Arrays.asList("flower", "flowers"), new ArrayList<String>(trie.getTopTags("", 2).keySet()));
+		assertEquals(Arrays.asList("fly", "tree"), new ArrayList<String>(trie.getTopTags("", 5).keySet()).subList(2, 4));
+		assertTrue(trie.getTopTags("x", 10).isEmpty());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testUpdate() {
+		TagTrie trie = new TagTrie();
+		Photo photo = TestPhotos.createPhoto("flower, tree");
+		trie.update(photo);
+		trie.update(photo);
+		assertEquals(1, trie.getCount("flower"));
+
+		photo.setTags(new Tags("flowers, tree"));
+		trie.update(photo);
+		assertEquals(0, trie.getCount("flower"));
+		assertEquals(1, trie.getCount("flowers"));
+		assertEquals(1, trie.getTopTags("flower", 10).size());
+
+		photo.setStatus(PhotoStatus.DELETED);
+		trie.update(photo);
+		assertTrue(trie.getTopTags("", 10).isEmpty());
+		assertTrue(trie.root.noChildren == 0);
+	}
+
+}
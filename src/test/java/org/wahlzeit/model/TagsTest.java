@@ -22,6 +22,11 @@ package org.wahlzeit.model;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.Set;
 
 /**
@@ -268,4 +273,53 @@ public class TagsTest extends TestCase {
 		assertTrue(set.contains("zb"));
 		assertTrue(set.contains("nihao"));
 	}
+
+	/**
+	 *
+	 */
+	public void testTagsAreInterned() {
+		Tags tags1 = new Tags("Flower, tree");
+		Tags tags2 = Tags.asTags(Arrays.asList("tree", "flower", "flower"));
+		assertEquals(tags1, tags2);
+		assertEquals(tags1.hashCode(), tags2.hashCode());
+		assertSame(tags1.intern().getTag(0), tags2.intern().getTag(0));
+		assertEquals("flower", tags1.getTag(0));
+
+		Tags interned = tags1.intern();
+		assertSame(interned, interned.intern());
+
+		String tag = "flower";
+		assertSame(tag, Tags.asTag(tag));
+	}
+
+	/**
+	 *
+	 */
+	public void testFilterTagsAreNotInterned() {
+		TagInterner interner = TagInterner.getInstance();
+		new Tags("neverstoredtag");
+		new PhotoFilter().setTagsCriterion("neverfilteredtag");
+		assertFalse(interner.contains("neverstoredtag"));
+		assertFalse(interner.contains("neverfilteredtag"));
+
+		new Tags("storedtag").intern();
+		assertTrue(interner.contains("storedtag"));
+	}
+
+	/**
+	 *
+	 */
+	public void testSerialization() throws Exception {
+		Tags tags = new Tags("b, a");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(tags);
+		out.close();
+
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		Tags copy = (Tags) in.readObject();
+		assertEquals(tags, copy);
+		assertEquals("a, b", copy.asString());
+	}
+
 }
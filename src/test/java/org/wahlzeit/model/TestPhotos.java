@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+/**
+ * Creates photos for the index tests. The fields are set directly rather than through the setters, so the photos do
+ * not reach the indexes of the PhotoManager.
+ */
+public class TestPhotos {
+
+	/**
+	 * @methodtype factory
+	 * @methodproperties convenience, class
+	 */
+	public static Photo createPhoto(String tags) {
+		return createPhoto(null, tags);
+	}
+
+	/**
+	 * @methodtype factory
+	 * @methodproperties class
+	 */
+	public static Photo createPhoto(String ownerId, String tags) {
+		Photo result = new Photo(PhotoId.getNextId());
+		result.ownerId = ownerId;
+		result.tags = new Tags(tags);
+		return result;
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the TrendingPhotos class.
+ */
+public class TrendingPhotosTest {
+
+	protected static final long NOW = 1000 * PraiseCounters.HOUR;
+
+	/**
+	 *
+	 */
+	@Test
+	public void testRanking() {
+		TrendingPhotos trendingPhotos = new TrendingPhotos(2);
+		PhotoId first = PhotoId.getNextId();
+		PhotoId second = PhotoId.getNextId();
+		PhotoId third = PhotoId.getNextId();
+		trendingPhotos.addPraise(first, 10, NOW - 90 * PraiseCounters.MINUTE);
+		trendingPhotos.addPraise(second, 4, NOW - 30 * PraiseCounters.MINUTE);
+		trendingPhotos.addPraise(third, 9, NOW - 10 * PraiseCounters.MINUTE);
+		trendingPhotos.addPraise(first, 4, NOW - 5 * PraiseCounters.MINUTE);
+
+		assertEquals(Arrays.asList(third, first), trendingPhotos.getTrendingPhotoIds(NOW));
+		assertEquals(Arrays.asList(first), trendingPhotos.getTrendingPhotoIds(NOW + 50 * PraiseCounters.MINUTE));
+		assertTrue(trendingPhotos.getTrendingPhotoIds(NOW + 3 * PraiseCounters.HOUR).isEmpty());
+		assertEquals(0, trendingPhotos.currentSketch.size() + trendingPhotos.previousSketch.size());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testUpdatesAtMostOncePerInterval() {
+		TrendingPhotos trendingPhotos = new TrendingPhotos(2);
+		PhotoId first = PhotoId.getNextId();
+		PhotoId second = PhotoId.getNextId();
+		trendingPhotos.addPraise(first, 5, NOW - PraiseCounters.MINUTE);
+		assertEquals(Arrays.asList(first), trendingPhotos.getTrendingPhotoIds(NOW));
+
+		trendingPhotos.addPraise(second, 9, NOW + 10 * 1000L);
+		assertEquals(Arrays.asList(first), trendingPhotos.getTrendingPhotoIds(NOW + 30 * 1000L));
+		long later = NOW + TrendingPhotos.UPDATE_INTERVAL;
+		assertEquals(Arrays.asList(second, first), trendingPhotos.getTrendingPhotoIds(later));
+	}
+
+}
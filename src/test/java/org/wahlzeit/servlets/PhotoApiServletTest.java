@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.servlets;
+
+import org.junit.Test;
+import org.wahlzeit.model.PhotoId;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test cases for the PhotoApiServlet class.
+ */
+public class PhotoApiServletTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testGetCursor() {
+		PhotoApiServlet servlet = new PhotoApiServlet();
+		assertEquals(0, servlet.getCursor(PhotoId.getFromInt(0), 10));
+		assertEquals(7, servlet.getCursor(PhotoId.getFromInt(7), 10));
+		assertEquals(10, servlet.getCursor(PhotoId.getFromInt(10), 10));
+
+		String[] invalidCursors = {
+				"", "x", "x!!", "X1AC0", "x1AC0", "y1ac0", "x01ac0", "x-1ac0", "x+1ac0", "xzzzzzzzzzzzz",
+				PhotoId.getFromInt(11)
+		};
+		for (String cursor : invalidCursors) {
+			try {
+				servlet.getCursor(cursor, 10);
+				fail("accepted cursor " + cursor);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testMalformedCursorIsBadRequest() throws IOException {
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		when(request.getParameter(PhotoApiServlet.CURSOR)).thenReturn("x!!");
+
+		new PhotoApiServlet().doGet(request, response);
+
+		verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+	}
+
+}
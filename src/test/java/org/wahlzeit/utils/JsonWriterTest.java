@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for the JsonWriter class.
+ */
+public class JsonWriterTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testNesting() throws IOException {
+		StringWriter out = new StringWriter();
+		JsonWriter json = new JsonWriter(out);
+		json.beginObject();
+		json.name("photos").beginArray();
+		json.beginObject().name("id").value("x1abc").name("praise").value(2.5).endObject();
+		json.beginObject().name("id").value("x1abd").name("noVotes").value(3).endObject();
+		json.endArray();
+		json.name("empty").beginArray().endArray();
+		json.name("nextCursor").value((String) null);
+		json.name("visible").value(true);
+		json.endObject();
+		json.flush();
+
+		String expected = "{\"photos\":[{\"id\":\"x1abc\",\"praise\":2.5},{\"id\":\"x1abd\",\"noVotes\":3}],"
+				+ "\"empty\":[],\"nextCursor\":null,\"visible\":true}";
+		assertEquals(expected, out.toString());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testEscaping() throws IOException {
+		StringWriter out = new StringWriter();
+		new JsonWriter(out).value("a\"b\\c\nd\u0001</script> ");
+		assertEquals("\"a\\\"b\\\\c\\nd\\u0001\\u003c/script>\\u2028\"", out.toString());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testNonFiniteNumbers() throws IOException {
+		StringWriter out = new StringWriter();
+		new JsonWriter(out).beginArray().value(Double.NaN).value(Double.POSITIVE_INFINITY).endArray();
+		assertEquals("[null,null]", out.toString());
+	}
+
+}
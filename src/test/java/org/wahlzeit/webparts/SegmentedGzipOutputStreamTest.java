@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.webparts;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for the SegmentedGzipOutputStream class.
+ */
+public class SegmentedGzipOutputStreamTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testMixedSegmentsDecompress() throws IOException {
+		byte[] segment = repeat("<td class=\"thumb\">static template text</td>\n", 50).getBytes(WebPartTemplate.CHARSET);
+		byte[] compressed = SegmentedGzipOutputStream.compress(segment);
+		assertTrue(compressed.length < segment.length);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SegmentedGzipOutputStream out = new SegmentedGzipOutputStream(bytes);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			String value = "value " + i + " äöü " + repeat("x", i * 7);
+			out.write(value.getBytes(WebPartTemplate.CHARSET));
+			out.writeCompressed(segment, compressed);
+			if (i % 5 == 0) {
+				out.flush();
+			}
+			expected.append(value).append(new String(segment, WebPartTemplate.CHARSET));
+		}
+		out.close();
+
+		assertEquals(expected.toString(), gunzip(bytes.toByteArray()));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testWebPartWritesSameContentGzipped() throws IOException {
+		WebPartTemplate template = new WebPartTemplate("test");
+		template.initialize("<html><head><title>Wahlzeit</title></head>\n<body>{$body}</body>\n</html>");
+		WebPart part = new WebPart(template);
+		part.addString("body", "Grüße");
+
+		ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		part.writeOn(plain);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SegmentedGzipOutputStream out = new SegmentedGzipOutputStream(bytes);
+		part.writeOn(out);
+		out.close();
+
+		assertEquals(new String(plain.toByteArray(), WebPartTemplate.CHARSET), gunzip(bytes.toByteArray()));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testEmptyStream() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new SegmentedGzipOutputStream(bytes).close();
+		assertEquals("", gunzip(bytes.toByteArray()));
+	}
+
+	/**
+	 *
+	 */
+	protected String gunzip(byte[] data) throws IOException {
+		GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data));
+		return new String(ByteStreams.toByteArray(in), WebPartTemplate.CHARSET);
+	}
+
+	/**
+	 *
+	 */
+	protected String repeat(String value, int times) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < times; i++) {
+			result.append(value);
+		}
+		return result.toString();
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.webparts;
+
+import org.junit.Test;
+import org.wahlzeit.model.Photo;
+import org.wahlzeit.model.PhotoId;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test cases for the WebPartCache class.
+ */
+public class WebPartCacheTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testKeyChangesWithDependency() {
+		WebPartTemplate template = new WebPartTemplate("en/infos/Test");
+		template.initialize("<p>static</p>");
+		Photo photo = new Photo(PhotoId.NULL_ID);
+
+		String key = WebPartCache.asKey(template, photo);
+		assertEquals(key, WebPartCache.asKey(template, photo));
+
+		photo.addToPraise(5);
+		assertNotEquals(key, WebPartCache.asKey(template, photo));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testFragment() throws Exception {
+		WebPartCache cache = new WebPartCache();
+		WebPartTemplate template = new WebPartTemplate("en/infos/Test");
+		template.initialize("<p>{$value}</p>");
+		String key = WebPartCache.asKey(template);
+		assertNull(cache.getFragment(key, template));
+
+		WebPart part = new WebPart(template);
+		part.addString("value", "cached");
+		cache.putFragment(key, part);
+
+		Writable fragment = cache.getFragment(key, template);
+		assertNotNull(fragment);
+		StringWriter out = new StringWriter();
+		fragment.writeOn(out);
+		assertEquals("<p>cached</p>", out.toString());
+
+		// a reloaded template invalidates fragments rendered from its predecessor
+		WebPartTemplate reloaded = new WebPartTemplate("en/infos/Test");
+		reloaded.initialize("<p>{$value}!</p>");
+		assertNull(cache.getFragment(key, reloaded));
+	}
+
+}
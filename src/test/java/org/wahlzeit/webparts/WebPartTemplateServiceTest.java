@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package org.wahlzeit.webparts;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wahlzeit.services.ConfigDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test cases for the WebPartTemplateService class.
+ */
+public class WebPartTemplateServiceTest {
+
+	/**
+	 *
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 *
+	 */
+	protected WebPartTemplateService service;
+	protected File defaultDir;
+	protected File customDir;
+
+	/**
+	 *
+	 */
+	@Before
+	public void setUp() {
+		service = new WebPartTemplateService();
+		service.setTemplatesDir(new ConfigDir(folder.getRoot().getPath(), "templates"));
+		defaultDir = new File(folder.getRoot(), "templates" + File.separator + ConfigDir.DEFAULT_DIR_NAME);
+		customDir = new File(folder.getRoot(), "templates" + File.separator + ConfigDir.CUSTOM_DIR_NAME);
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testLoadAllTemplates() throws IOException {
+		writeFile(new File(defaultDir, "en/pages/ShowPhotoPage.html"), "<p>photo</p>");
+		writeFile(new File(defaultDir, "de/infos/About.html"), "<p>über</p>");
+		writeFile(new File(customDir, "en/parts/Banner.html"), "<p>banner</p>");
+		writeFile(new File(defaultDir, "en/pages/notes.txt"), "no template");
+
+		service.loadAllTemplates();
+
+		assertEquals(new HashSet<String>(Arrays.asList(asShortName("en/pages/ShowPhotoPage"),
+				asShortName("de/infos/About"), asShortName("en/parts/Banner"))), service.templates.keySet());
+		assertEquals("<p>über</p>", service.templates.get(asShortName("de/infos/About")).asString());
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testGetShortName() {
+		assertEquals(asShortName("en/pages/ShowPhotoPage"),
+				service.getShortName(new File(defaultDir, "en/pages/ShowPhotoPage.html")));
+		assertEquals(asShortName("en/parts/Banner"),
+				service.getShortName(new File(customDir, "en/parts/Banner.html")));
+		assertNull(service.getShortName(new File(defaultDir, "en/pages/notes.txt")));
+		assertNull(service.getShortName(new File(folder.getRoot(), "elsewhere/en/pages/ShowPhotoPage.html")));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testHandleTemplateFileChange() throws IOException {
+		File file = new File(defaultDir, "en/pages/ShowPhotoPage.html");
+		writeFile(file, "<p>old</p>");
+		service.loadAllTemplates();
+		WebPartTemplate oldTemplate = service.getTemplate("en", "pages/ShowPhotoPage");
+		assertSame(oldTemplate, service.getTemplate("en", "pages/ShowPhotoPage"));
+
+		writeFile(file, "<p>{$new}</p>");
+		service.handleTemplateFileChange(file);
+
+		WebPartTemplate newTemplate = service.getTemplate("en", "pages/ShowPhotoPage");
+		assertNotSame(oldTemplate, newTemplate);
+		assertEquals("<p></p>", newTemplate.asString());
+		assertEquals("new", newTemplate.getKeys()[0]);
+		assertEquals("<p>old</p>", oldTemplate.asString());
+
+		// changes to other files leave the templates alone
+		service.handleTemplateFileChange(new File(defaultDir, "en/pages/notes.txt"));
+		assertSame(newTemplate, service.getTemplate("en", "pages/ShowPhotoPage"));
+	}
+
+	/**
+	 * @methodtype conversion
+	 */
+	protected String asShortName(String name) {
+		return name.replace('/', File.separatorChar);
+	}
+
+	/**
+	 * @methodtype command
+	 */
+	protected void writeFile(File file, String contents) throws IOException {
+		Files.createParentDirs(file);
+		Files.write(contents, file, Charsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2006-2009 by Dirk Riehle, http://dirkriehle.com
+ *
+ * This file is part of the Wahlzeit photo rating application.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.wahlzeit.webparts;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for the WebPart class.
+ */
+public class WebPartTest {
+
+	/**
+	 *
+	 */
+	@Test
+	public void testWriteOnOutputStreamMatchesWriter() throws IOException {
+		WebPartTemplate inner = new WebPartTemplate("inner");
+		inner.initialize("<b>{$name}</b>");
+		WebPartTemplate outer = new WebPartTemplate("outer");
+		outer.initialize("<p>Grüße {$first}</p>\n<p>{$second}</p>\n<ul>{$list}</ul>\n<p>{$missing}</p>");
+
+		WebPart part = new WebPart(outer);
+		part.addString("first", "Jürgen");
+		part.addString("second", "Zoë");
+		WritableList list = new WritableList();
+		for (String name : new String[] {"a", "ß"}) {
+			WebPart innerPart = new WebPart(inner);
+			innerPart.addString("name", name);
+			list.append(innerPart);
+		}
+		part.addWritable("list", list);
+
+		StringWriter writer = new StringWriter();
+		part.writeOn(writer);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		part.writeOn(out);
+
+		assertEquals("<p>Grüße Jürgen</p>\n<p>Zoë</p>\n<ul><b>a</b><b>ß</b></ul>\n<p></p>", writer.toString());
+		assertEquals(writer.toString(), new String(out.toByteArray(), WebPartTemplate.CHARSET));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testTemplateWithoutSlots() throws IOException {
+		WebPartTemplate template = new WebPartTemplate("plain");
+		template.initialize("plain text");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new WebPart(template).writeOn(out);
+		assertEquals("plain text", new String(out.toByteArray(), WebPartTemplate.CHARSET));
+	}
+
+	/**
+	 *
+	 */
+	@Test
+	public void testStreamingWritesSameContent() throws IOException {
+		WebPartTemplate template = new WebPartTemplate("page");
+		template.initialize("<head>{$title}</head>\n<body>\n{$menu}\n<div>{$body}</div>\n{$footer}\n</body>");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StreamingWebPart part = new StreamingWebPart(template, out);
+		part.addString("title", "Wahlzeit");
+		part.addString("menu", "Menu");
+		part.writeThrough("menu");
+		assertEquals("<head>Wahlzeit</head>\n<body>\nMenu", new String(out.toByteArray(), WebPartTemplate.CHARSET));
+
+		part.addString("title", "ignored, already written");
+		part.addString("body", "Body");
+		part.writeThrough("menu");
+		part.addString("footer", "Footer");
+		part.writeOn(out);
+		assertEquals("<head>Wahlzeit</head>\n<body>\nMenu\n<div>Body</div>\nFooter\n</body>",
+				new String(out.toByteArray(), WebPartTemplate.CHARSET));
+	}
+
+}